@@ -0,0 +1,134 @@
+package projectLPO;
+
+import static java.lang.System.err;
+import static java.lang.System.out;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import projectLPO.parser.BufferedParser;
+import projectLPO.parser.ParserException;
+import projectLPO.parser.ReaderTokenizer;
+import projectLPO.parser.ast.AstArena;
+import projectLPO.parser.ast.Prog;
+import projectLPO.visitors.closures.ClosureEval;
+import projectLPO.visitors.closures.TieredLoops;
+import projectLPO.visitors.evaluation.Eval;
+import projectLPO.visitors.evaluation.EvaluatorException;
+import projectLPO.visitors.evaluation.SwitchEval;
+import projectLPO.visitors.jit.Jit;
+import projectLPO.visitors.resolution.Resolver;
+import projectLPO.visitors.specialization.SpecializingEval;
+import projectLPO.visitors.typechecking.TypeCheck;
+import projectLPO.visitors.typechecking.TypecheckerException;
+import projectLPO.visitors.vm.Vm;
+
+/*
+ * runs a well typed program with each evaluation mode and reports the median
+ * time and the bytes allocated per run; the program is parsed, type-checked and
+ * resolved once, and stored once in an AstArena for mode arena, which runs Eval
+ * on it; the output is discarded; with -ntc the program is neither
+ * type-checked nor resolved with static types, and only the modes which do
+ * not need them are run, hence ill-typed programs can be measured too
+ *
+ * usage: java projectLPO.Benchmark <program> [runs] [-ntc]
+ */
+public class Benchmark {
+
+	private static final int WARMUP_RUNS = 3;
+
+	private static Prog arena; // the program stored in an AstArena, run by mode arena
+
+	// the evaluation modes, by name
+	private static final Map<String, Function<PrintWriter, Consumer<Prog>>> modes = new LinkedHashMap<>();
+	static {
+		modes.put("eager", pw -> prog -> prog.accept(new Eval(pw)));
+		modes.put("arena", pw -> prog -> arena.accept(new Eval(pw)));
+		modes.put("lazy-pairs", pw -> prog -> prog.accept(new Eval(pw, null, true)));
+		modes.put("switch", pw -> new SwitchEval(pw)::run);
+		modes.put("tiered", pw -> prog -> prog.accept(new Eval(pw, null, false, new TieredLoops(pw, null))));
+		modes.put("closures", pw -> new ClosureEval(pw)::run);
+		modes.put("vm", pw -> new Vm(pw)::run);
+		modes.put("jit", pw -> new Jit(pw)::run);
+		modes.put("specializing", pw -> new SpecializingEval(pw, null)::run);
+	}
+
+	// the modes which do not use static types
+	private static final Set<String> untypedModes = Set.of("eager", "arena", "lazy-pairs", "switch", "specializing");
+
+	private static final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+			.getThreadMXBean();
+
+	private static Prog load(String path, boolean typed) throws IOException, ParserException {
+		try (var parser = new BufferedParser(new ReaderTokenizer(new FileReader(path)))) {
+			var prog = parser.parseProg();
+			if (typed)
+				prog.accept(new TypeCheck());
+			return new Resolver(typed).resolve(prog);
+		}
+	}
+
+	private static void run(String mode, Prog prog, int runs) {
+		var pw = new PrintWriter(Writer.nullWriter());
+		var newEval = modes.get(mode);
+		for (var i = 0; i < WARMUP_RUNS; i++)
+			newEval.apply(pw).accept(prog);
+		var times = new long[runs];
+		var bytes = 0L;
+		for (var i = 0; i < runs; i++) {
+			var startBytes = threads.getCurrentThreadAllocatedBytes();
+			var start = System.nanoTime();
+			newEval.apply(pw).accept(prog);
+			times[i] = System.nanoTime() - start;
+			bytes += threads.getCurrentThreadAllocatedBytes() - startBytes;
+		}
+		Arrays.sort(times);
+		out.printf("%-12s %10.2f ms %12.2f MB%n", mode, times[runs / 2] / 1e6, bytes / (double) runs / (1 << 20));
+	}
+
+	private static void usage() {
+		err.println("usage: java projectLPO.Benchmark <program> [runs] [-ntc]");
+		System.exit(1);
+	}
+
+	public static void main(String[] args) {
+		// -ntc may appear anywhere, the other arguments are positional
+		var positional = Arrays.stream(args).filter(arg -> !arg.equals("-ntc")).toArray(String[]::new);
+		var typed = positional.length == args.length;
+		if (positional.length < 1 || positional.length > 2)
+			usage();
+		var runs = 10;
+		if (positional.length > 1)
+			try {
+				runs = Integer.parseInt(positional[1]);
+			} catch (NumberFormatException e) {
+				usage();
+			}
+		if (runs < 1)
+			usage();
+		try {
+			var prog = load(positional[0], typed);
+			arena = AstArena.store(prog);
+			for (var mode : modes.keySet())
+				if (typed || untypedModes.contains(mode))
+					run(mode, prog, runs);
+		} catch (IOException e) {
+			err.println("I/O error: " + e.getMessage());
+		} catch (ParserException e) {
+			err.println("Syntax error: " + e.getMessage());
+		} catch (TypecheckerException e) {
+			err.println("Static error: " + e.getMessage());
+		} catch (EvaluatorException e) {
+			err.println("Dynamic error: " + e.getMessage());
+		}
+	}
+}
@@ -1,42 +1,122 @@
 package projectLPO;
 
 import static java.lang.System.err;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
 
-import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import projectLPO.parser.BufferedParser;
-import projectLPO.parser.BufferedTokenizer;
+import projectLPO.parser.IncrementalParser;
+import projectLPO.parser.MappedTokenizer;
+import projectLPO.parser.PackedTokenStream;
 import projectLPO.parser.ParserException;
+import projectLPO.parser.PipelinedTokenizer;
+import projectLPO.parser.ReaderTokenizer;
+import projectLPO.parser.Tokenizer;
+import projectLPO.parser.ast.AstArena;
+import projectLPO.parser.ast.ProgAST;
+import projectLPO.parser.ast.Stmt;
+import projectLPO.parser.ast.StmtList;
+import projectLPO.parser.ast.SymbolTable;
 import projectLPO.parser.ast.Prog;
+import projectLPO.visitors.Visitor;
+import projectLPO.visitors.closures.ClosureEval;
+import projectLPO.visitors.closures.TieredLoops;
 import projectLPO.visitors.typechecking.TypeCheck;
 import projectLPO.visitors.typechecking.TypecheckerException;
 import projectLPO.visitors.evaluation.Eval;
 import projectLPO.visitors.evaluation.EvaluatorException;
+import projectLPO.visitors.evaluation.PairArena;
+import projectLPO.visitors.evaluation.PairInterner;
+import projectLPO.visitors.evaluation.SwitchEval;
+import projectLPO.visitors.evaluation.TaggedEval;
+import projectLPO.visitors.jit.Jit;
+import projectLPO.visitors.resolution.Resolver;
+import projectLPO.visitors.serialization.AstFormatException;
+import projectLPO.visitors.serialization.AstReader;
+import projectLPO.visitors.serialization.AstWriter;
+import projectLPO.visitors.specialization.SpecializingEval;
+import projectLPO.visitors.vm.Vm;
 
 public class Main {
 	// instance variables for managing options
 	public static final String INPUT_OPT = "-i";
 	public static final String OUTPUT_OPT = "-o";
 	public static final String NO_TYPE_CHECK = "-ntc";
+	public static final String MMAP_OPT = "-mmap";
+	public static final String PARALLEL_OPT = "-parallel";
+	public static final String COMPILE_OPT = "-c";
+	public static final String RUN_OPT = "-r";
+	public static final String ARENA_OPT = "-arena";
+	public static final String WATCH_OPT = "-watch";
+	public static final String STREAM_OPT = "-stream";
+	public static final String PIPELINE_OPT = "-pipeline";
+	public static final String TAGGED_OPT = "-tagged";
+	public static final String OFFHEAP_OPT = "-offheap";
+	public static final String HASHCONS_OPT = "-hashcons";
+	public static final String LAZY_PAIRS_OPT = "-lazy-pairs";
+	public static final String CLOSURES_OPT = "-closures";
+	public static final String VM_OPT = "-vm";
+	public static final String JIT_OPT = "-jit";
+	public static final String TIERED_OPT = "-tiered";
+	public static final String TIER_LOG_OPT = "-tier-log";
+	public static final String SPECIALIZE_OPT = "-specialize";
+	public static final String SPEC_LOG_OPT = "-spec-log";
+	public static final String SWITCH_OPT = "-switch";
+	public static final int WATCH_DELAY = 50; // milliseconds without changes before a file is read again
 	public static boolean type_check = true;
 
+	// add here more options without arguments, if needed
+	// maps options to whether they have been specified, initially false
+	public static final Map<String, Boolean> flags = new HashMap<>();
+	static {
+		flags.put(MMAP_OPT, false);
+		flags.put(PARALLEL_OPT, false);
+		flags.put(ARENA_OPT, false);
+		flags.put(WATCH_OPT, false);
+		flags.put(STREAM_OPT, false);
+		flags.put(PIPELINE_OPT, false);
+		flags.put(TAGGED_OPT, false);
+		flags.put(OFFHEAP_OPT, false);
+		flags.put(HASHCONS_OPT, false);
+		flags.put(LAZY_PAIRS_OPT, false);
+		flags.put(CLOSURES_OPT, false);
+		flags.put(VM_OPT, false);
+		flags.put(JIT_OPT, false);
+		flags.put(TIERED_OPT, false);
+		flags.put(TIER_LOG_OPT, false);
+		flags.put(SPECIALIZE_OPT, false);
+		flags.put(SPEC_LOG_OPT, false);
+		flags.put(SWITCH_OPT, false);
+	}
+
 	// add here more options with string arguments, if needed
 	// maps options to their string values, initially null
 	public static final Map<String, String> options = new HashMap<>();
 	static {
 		options.put(INPUT_OPT, null);
 		options.put(OUTPUT_OPT, null);
+		options.put(COMPILE_OPT, null);
+		options.put(RUN_OPT, null);
 	}
 
 	// manage generic option errors
 	private static void optionError() {
-		System.err.println("Option error.\nValid options:\n\t-i <input>\n\t-o <output>\n\t-ntc");
+		System.err.println("Option error.\nValid options:\n\t-i <input>\n\t-o <output>\n\t-ntc\n\t-mmap\n\t-parallel\n\t-c <compiled output>\n\t-r <compiled input>\n\t-arena\n\t-watch\n\t-stream\n\t-pipeline\n\t-tagged\n\t-offheap\n\t-hashcons\n\t-lazy-pairs\n\t-closures\n\t-vm\n\t-jit\n\t-tiered\n\t-tier-log\n\t-specialize\n\t-spec-log\n\t-switch");
 		System.exit(1);
 	}
 
@@ -45,6 +125,8 @@ public class Main {
 		var opt = args[i];
 		if (opt.equals(NO_TYPE_CHECK))
 			type_check = false;
+		else if (flags.containsKey(opt))
+			flags.put(opt, true);
 		else {
 			if (!options.containsKey(opt) || i + 1 == args.length)
 				optionError();
@@ -62,8 +144,25 @@ public class Main {
 	// end of utility methods for option processing
 
 	// opens the input stream, standard input if -i option is null
-	private static BufferedReader tryOpenInput(String inputPath) throws FileNotFoundException {
-		return new BufferedReader(inputPath == null ? new InputStreamReader(System.in) : new FileReader(inputPath));
+	private static Reader tryOpenInput(String inputPath) throws FileNotFoundException {
+		return inputPath == null ? new InputStreamReader(System.in) : new FileReader(inputPath);
+	}
+
+	/*
+	 * opens the tokenizer for the input; with options -mmap and -parallel the input
+	 * file is mapped in memory, or standard input is entirely read in a direct
+	 * buffer; with option -parallel the whole input is tokenized in parallel; with
+	 * option -pipeline the tokenizer runs on its own thread, concurrently with the
+	 * parser
+	 */
+	private static Tokenizer tryOpenTokenizer(String inputPath) throws IOException {
+		Tokenizer tokenizer;
+		if (flags.get(MMAP_OPT) || flags.get(PARALLEL_OPT)) {
+			var input = inputPath == null ? MappedTokenizer.readStream(System.in) : MappedTokenizer.mapFile(inputPath);
+			tokenizer = flags.get(PARALLEL_OPT) ? PackedTokenStream.lexInParallel(input) : new MappedTokenizer(input);
+		} else
+			tokenizer = new ReaderTokenizer(tryOpenInput(inputPath));
+		return flags.get(PIPELINE_OPT) ? PipelinedTokenizer.start(tokenizer) : tokenizer;
 	}
 
 	// opens the output stream, standard output if -o option is null
@@ -71,18 +170,171 @@ public class Main {
 		return outputPath == null ? new PrintWriter(System.out) : new PrintWriter(outputPath);
 	}
 
+	// type-checks the program, unless -ntc is specified or this was already done
+	private static Prog prepareProg(Prog prog, boolean typeChecked) {
+		if (type_check && !typeChecked)
+			prog.accept(new TypeCheck());
+		return prog;
+	}
+
+	/*
+	 * with option -tagged values are encoded in tagged longs by TaggedEval; option
+	 * -offheap implies -tagged, and pairs are stored in a PairArena; with option
+	 * -hashcons the pairs of Eval are hash-consed by a PairInterner; with option
+	 * -lazy-pairs the components of the pairs of Eval are evaluated only when
+	 * needed, and -hashcons is ignored; with option -closures well typed programs
+	 * are compiled into closures by a ClosureEval, with option -vm they are
+	 * compiled into the bytecode of a Vm, with option -jit whole programs are
+	 * compiled into JVM classes by a Jit, and into closures with -stream; these
+	 * options are ignored with -ntc; with option -tiered the hot loops of well
+	 * typed programs evaluated by Eval are compiled into closures, and with
+	 * -tier-log the compiled loops are reported on the standard error; with
+	 * option -specialize programs, also not type-checked, are run by a
+	 * SpecializingEval, and with -spec-log the specializations of its nodes are
+	 * reported on the standard error; with option -switch programs are evaluated
+	 * by a SwitchEval, which matches the classes of the nodes instead of using
+	 * visitors, and -hashcons, -lazy-pairs and -tiered are ignored
+	 */
+	private static Consumer<Prog> newEval(PrintWriter pw) {
+		if (flags.get(JIT_OPT) && type_check && !flags.get(STREAM_OPT))
+			return new Jit(pw)::run;
+		if (flags.get(VM_OPT) && type_check)
+			return new Vm(pw)::run;
+		if ((flags.get(CLOSURES_OPT) || flags.get(JIT_OPT)) && type_check)
+			return new ClosureEval(pw)::run;
+		if (flags.get(SPECIALIZE_OPT))
+			return new SpecializingEval(pw, flags.get(SPEC_LOG_OPT) ? err : null)::run;
+		if (flags.get(SWITCH_OPT))
+			return new SwitchEval(pw)::run;
+		Visitor<?> eval;
+		if (flags.get(OFFHEAP_OPT))
+			eval = new TaggedEval(pw, new PairArena());
+		else if (flags.get(TAGGED_OPT))
+			eval = new TaggedEval(pw);
+		else
+			eval = new Eval(pw, flags.get(HASHCONS_OPT) ? new PairInterner() : null, flags.get(LAZY_PAIRS_OPT),
+					flags.get(TIERED_OPT) && type_check ? new TieredLoops(pw, flags.get(TIER_LOG_OPT) ? err : null) : null);
+		return prog -> prog.accept(eval);
+	}
+
+	/*
+	 * executes the program once its variables are resolved to slots, with scalar
+	 * variables in primitive slots if the program is well typed; with option
+	 * -arena the resolved program is moved into an AstArena
+	 */
+	private static void executeProg(Prog prog, PrintWriter pw) {
+		prog = new Resolver(type_check).resolve(prog);
+		if (flags.get(ARENA_OPT))
+			prog = AstArena.store(prog);
+		newEval(pw).accept(prog);
+	}
+
+	// parses the program in the input
+	private static Prog parseProg(String inputPath) throws IOException, ParserException {
+		try (var tokenizer = tryOpenTokenizer(inputPath); var parser = new BufferedParser(tokenizer);) {
+			return prepareProg(parser.parseProg(), false);
+		}
+	}
+
+	/*
+	 * loads a program compiled with option -c; it is type-checked only if this was
+	 * not done before compilation and -ntc is not specified
+	 */
+	private static Prog loadProg(String compiledPath) throws IOException, AstFormatException {
+		var reader = AstReader.open(compiledPath, new SymbolTable());
+		return prepareProg(reader.readProg(), reader.isTypeChecked());
+	}
+
+	// type-checks and executes a version of the program, errors are reported without stopping
+	private static void runVersion(IncrementalParser parser, byte[] text, PrintWriter pw) {
+		try {
+			executeProg(prepareProg(parser.parse(text), false), pw);
+		} catch (ParserException e) {
+			err.println("Syntax error: " + e.getMessage());
+		} catch (TypecheckerException e) {
+			err.println("Static error: " + e.getMessage());
+		} catch (EvaluatorException e) {
+			err.println("Dynamic error: " + e.getMessage());
+		}
+		pw.flush();
+	}
+
+	/*
+	 * with option -watch the program is executed again each time the input file
+	 * changes; only the statements touched by the edit are parsed again
+	 */
+	private static void watch(String inputPath, PrintWriter pw) throws IOException, InterruptedException {
+		if (inputPath == null)
+			optionError();
+		var path = Path.of(inputPath).toAbsolutePath();
+		var parser = new IncrementalParser();
+		try (var watcher = FileSystems.getDefault().newWatchService()) {
+			path.getParent().register(watcher, ENTRY_CREATE, ENTRY_MODIFY);
+			byte[] text = null;
+			while (true) {
+				var newText = Files.readAllBytes(path);
+				if (!Arrays.equals(text, newText)) // editors may signal more events for one save
+					runVersion(parser, text = newText, pw);
+				// waits for an event on the input, then until no event arrives for WATCH_DELAY
+				var changed = false;
+				var key = watcher.take();
+				while (key != null) {
+					for (var event : key.pollEvents())
+						changed |= path.getFileName().equals(event.context());
+					key.reset();
+					key = changed ? watcher.poll(WATCH_DELAY, MILLISECONDS) : watcher.take();
+				}
+			}
+		}
+	}
+
+	/*
+	 * with option -stream each top-level statement is type-checked and executed as
+	 * soon as it is parsed, then it is released; the environments of type checking
+	 * and evaluation persist across statements, and an error stops the program
+	 * before any later statement is executed
+	 */
+	private static void streamProg(String inputPath, PrintWriter pw) throws IOException, ParserException {
+		var typeCheck = new TypeCheck();
+		var resolver = new Resolver(type_check);
+		var eval = newEval(pw);
+		try (var tokenizer = tryOpenTokenizer(inputPath); var parser = new BufferedParser(tokenizer);) {
+			Stmt stmt;
+			while ((stmt = parser.parseNextStmt()) != null) {
+				var prog = new ProgAST(new StmtList(List.of(stmt)));
+				if (type_check)
+					prog.accept(typeCheck);
+				eval.accept(resolver.resolve(prog));
+				pw.flush();
+			}
+		}
+	}
+
+	/*
+	 * with option -c the program is compiled into the given file instead of being
+	 * executed; with option -r the compiled program in the given file is executed
+	 */
 	public static void main(String[] args) {
 		processArgs(args);
-		try (var rd = tryOpenInput(options.get(INPUT_OPT));
-				var tokenizer = new BufferedTokenizer(rd);
-				var parser = new BufferedParser(tokenizer);
-				var pw = tryOpenOutput(options.get(OUTPUT_OPT));) {
-			Prog prog = parser.parseProg();
-			if (type_check)
-				prog.accept(new TypeCheck());
-			prog.accept(new Eval(pw));
+		try (var pw = tryOpenOutput(options.get(OUTPUT_OPT))) {
+			if (flags.get(WATCH_OPT)) {
+				watch(options.get(INPUT_OPT), pw);
+				return;
+			}
+			if (flags.get(STREAM_OPT)) {
+				streamProg(options.get(INPUT_OPT), pw);
+				return;
+			}
+			var compiledPath = options.get(RUN_OPT);
+			var prog = compiledPath != null ? loadProg(compiledPath) : parseProg(options.get(INPUT_OPT));
+			if (options.get(COMPILE_OPT) != null)
+				AstWriter.write(prog, type_check, options.get(COMPILE_OPT));
+			else
+				executeProg(prog, pw);
 		} catch (IOException e) {
 			err.println("I/O error: " + e.getMessage());
+		} catch (AstFormatException e) {
+			err.println("Format error: " + e.getMessage());
 		} catch (ParserException e) {
 			err.println("Syntax error: " + e.getMessage());
 		} catch (TypecheckerException e) {
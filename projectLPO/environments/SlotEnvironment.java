@@ -0,0 +1,131 @@
+package projectLPO.environments;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+
+import projectLPO.parser.ast.ResolvedVarIdent;
+import projectLPO.parser.ast.VarIdent;
+
+/*
+ * environment for programs resolved by the Resolver: identifiers must be
+ * instances of ResolvedVarIdent, and the payloads are stored in a single array
+ * indexed by their slots; since the frames of blocks are laid out statically in
+ * the array, entering and exiting scopes has nothing to do; errors found by the
+ * Resolver are raised with the same exceptions as GenEnvironment; variables of
+ * scalar kinds are stored in a parallel array of primitive slots, without payload
+ */
+public class SlotEnvironment<T> implements Environment<T> {
+
+	private Object[] slots;
+	private int[] scalars;
+	private int top; // slots from top on have never been declared
+
+	public SlotEnvironment() {
+		slots = new Object[16];
+		scalars = new int[16];
+	}
+
+	private SlotEnvironment(Object[] slots, int[] scalars, int top) {
+		this.slots = slots;
+		this.scalars = scalars;
+		this.top = top;
+	}
+
+	private static int slot(VarIdent id) {
+		return ((ResolvedVarIdent) id).getSlot();
+	}
+
+	private static EnvironmentException undeclared(VarIdent id) {
+		return new EnvironmentException("Undeclared variable " + id.getName());
+	}
+
+	private void ensureCapacity(int slot) {
+		if (slot >= slots.length) {
+			var capacity = Math.max(2 * slots.length, slot + 1);
+			slots = Arrays.copyOf(slots, capacity);
+			scalars = Arrays.copyOf(scalars, capacity);
+		}
+		if (slot >= top)
+			top = slot + 1;
+	}
+
+	// environment with the same capacity and no variables, to be filled by copyTo()
+	public SlotEnvironment<T> emptyCopy() {
+		var length = Math.max(top, 1);
+		return new SlotEnvironment<>(new Object[length], new int[length], top);
+	}
+
+	// payload of id, or null if id is undeclared; no error is raised
+	@SuppressWarnings("unchecked")
+	public T peek(VarIdent id) {
+		var slot = slot(id);
+		return slot >= 0 && slot < top ? (T) slots[slot] : null;
+	}
+
+	// copies the slot of id into env, unless id is undeclared
+	public void copyTo(VarIdent id, SlotEnvironment<T> env) {
+		var slot = slot(id);
+		if (slot >= 0 && slot < top) {
+			env.slots[slot] = slots[slot];
+			env.scalars[slot] = scalars[slot];
+		}
+	}
+
+	@Override
+	public void enterScope() {
+	}
+
+	@Override
+	public void exitScope() {
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public T lookup(VarIdent id) {
+		var slot = slot(id);
+		if (slot < 0)
+			throw undeclared(id);
+		return (T) slots[slot];
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public T dec(VarIdent id, T payload) {
+		var slot = slot(id);
+		if (slot < 0)
+			throw new EnvironmentException("Variable " + id.getName() + " already declared");
+		ensureCapacity(slot);
+		var previous = (T) slots[slot]; // left by an exited scope which used the same slot
+		slots[slot] = requireNonNull(payload);
+		return previous;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public T update(VarIdent id, T payload) {
+		var slot = slot(id);
+		if (slot < 0)
+			throw undeclared(id);
+		var previous = (T) slots[slot];
+		slots[slot] = requireNonNull(payload);
+		return previous;
+	}
+
+	// primitive slots of variables of scalar kinds, which are never undeclared in well typed programs
+
+	public int lookupScalar(VarIdent id) {
+		return scalars[slot(id)];
+	}
+
+	public void decScalar(VarIdent id, int value) {
+		var slot = slot(id);
+		ensureCapacity(slot);
+		scalars[slot] = value;
+	}
+
+	public void updateScalar(VarIdent id, int value) {
+		scalars[slot(id)] = value;
+	}
+
+}
@@ -0,0 +1,63 @@
+package projectLPO.environments;
+
+import java.util.Arrays;
+
+import projectLPO.parser.ast.ResolvedVarIdent;
+import projectLPO.parser.ast.VarIdent;
+
+/*
+ * variant of SlotEnvironment for values encoded in tagged longs: each slot holds
+ * a long and a reference of type R, which is only used for values which do not
+ * fit in a long and is null otherwise; identifiers must be instances of
+ * ResolvedVarIdent, and errors are raised with the same exceptions as
+ * SlotEnvironment
+ */
+public class TaggedSlotEnvironment<R> {
+
+	private long[] values = new long[16];
+	private Object[] refs = new Object[16];
+
+	private static int slot(VarIdent id) {
+		return ((ResolvedVarIdent) id).getSlot();
+	}
+
+	private static EnvironmentException undeclared(VarIdent id) {
+		return new EnvironmentException("Undeclared variable " + id.getName());
+	}
+
+	// looks up the long of id
+	public long lookup(VarIdent id) {
+		var slot = slot(id);
+		if (slot < 0)
+			throw undeclared(id);
+		return values[slot];
+	}
+
+	// looks up the reference of id, which must have been looked up before
+	@SuppressWarnings("unchecked")
+	public R lookupRef(VarIdent id) {
+		return (R) refs[slot(id)];
+	}
+
+	public void dec(VarIdent id, long value, R ref) {
+		var slot = slot(id);
+		if (slot < 0)
+			throw new EnvironmentException("Variable " + id.getName() + " already declared");
+		if (slot >= values.length) {
+			var capacity = Math.max(2 * values.length, slot + 1);
+			values = Arrays.copyOf(values, capacity);
+			refs = Arrays.copyOf(refs, capacity);
+		}
+		values[slot] = value;
+		refs[slot] = ref;
+	}
+
+	public void update(VarIdent id, long value, R ref) {
+		var slot = slot(id);
+		if (slot < 0)
+			throw undeclared(id);
+		values[slot] = value;
+		refs[slot] = ref;
+	}
+
+}
@@ -9,31 +9,55 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import projectLPO.parser.ast.*;
 
 /*
 Prog ::= StmtSeq EOF
-StmtSeq ::= Stmt (';' StmtSeq)?
+StmtSeq ::= Stmt (';' Stmt)*
 Stmt ::= 'var'? IDENT '=' Exp | 'print' Exp |  'if' '(' Exp ')' '{' StmtSeq '}' ('else' '{' StmtSeq '}')? 
 Exp ::= Eq ('&&' Eq)* 
-Eq ::= Add ('==' Add)*
+Eq ::= Less ('==' Less)*
+Less ::= Add ('<' Add)*
 Add ::= Mul ('+' Mul)*
 Mul::= Atom ('*' Atom)*
-Atom ::= '<<' Exp ',' Exp '>>' | 'fst' Atom | 'snd' Atom | '-' Atom | '!' Atom | BOOL | NUM | IDENT | '(' Exp ')'
+Atom ::= '<<' Exp ',' Exp '>>' | 'fst' Atom | 'snd' Atom | '-' Atom | '!' Atom | '#' Atom | 'seasonof' Atom | BOOL | SEASON | NUM | IDENT | '(' Exp ')'
 */
 
 public class BufferedParser implements Parser {
 
-	private final BufferedTokenizer buf_tokenizer; // the buffered tokenizer used by the parser
+	private static final TokenType[] tokenTypes = TokenType.values();
+	// tables indexed by the ordinals of token types, used by parseExp()
+	private static final int[] precedences = new int[tokenTypes.length]; // 0 for non binary operators
+	private static final boolean[] unaryOperators = new boolean[tokenTypes.length];
+	private static final boolean[] prefixes = new boolean[tokenTypes.length]; // unary operators and open brackets
+
+	private final Tokenizer buf_tokenizer; // the tokenizer used by the parser
+	private byte[] operators = new byte[16]; // operator stack of parseExp(), reused across calls
+	private boolean streaming; // whether parseNextStmt() has already been called
+
+	static { // binary operators, from the lowest to the highest precedence
+		precedences[AND.ordinal()] = 1;
+		precedences[EQ.ordinal()] = 2;
+		precedences[LESS.ordinal()] = 3;
+		precedences[PLUS.ordinal()] = 4;
+		precedences[TIMES.ordinal()] = 5;
+		for (var type : new TokenType[] { MINUS, SEASON_NUM, SEASONOF, FST, SND, NOT })
+			unaryOperators[type.ordinal()] = prefixes[type.ordinal()] = true;
+		prefixes[OPEN_PAR.ordinal()] = prefixes[START_PAIR.ordinal()] = true;
+	}
 
 	/*
 	 * reads the next token through the buffered tokenizer associated with the
-	 * parser; TokenizerExceptions are chained into corresponding ParserExceptions
+	 * parser and returns its type; TokenizerExceptions are chained into
+	 * corresponding ParserExceptions
 	 */
-	private void nextToken() throws ParserException {
+	private TokenType nextToken() throws ParserException {
 		try {
-			buf_tokenizer.next();
+			return buf_tokenizer.next();
 		} catch (TokenizerException e) {
 			throw new ParserException(e);
 		}
@@ -49,10 +73,15 @@ public class BufferedParser implements Parser {
 	 * 'expected'; if not, it throws a corresponding ParserException
 	 */
 	private void match(TokenType expected) throws ParserException {
+		if (buf_tokenizer.tokenType() != expected)
+			mismatchError(expected);
+	}
+
+	// kept apart from match() so that the latter is small enough to be inlined
+	private void mismatchError(TokenType expected) throws ParserException {
 		final var found = buf_tokenizer.tokenType();
-		if (found != expected)
-			throw new ParserException(line_err_msg(
-					"Expecting " + expected + ", found " + found + "('" + buf_tokenizer.tokenString() + "')"));
+		throw new ParserException(line_err_msg(
+				"Expecting " + expected + ", found " + found + "('" + buf_tokenizer.tokenString() + "')"));
 	}
 
 	/*
@@ -71,8 +100,8 @@ public class BufferedParser implements Parser {
 				"Unexpected token " + buf_tokenizer.tokenType() + "('" + buf_tokenizer.tokenString() + "')"));
 	}
 
-	// associates the parser with a corresponding non-null buffered tokenizer
-	public BufferedParser(BufferedTokenizer tokenizer) {
+	// associates the parser with a corresponding non-null tokenizer
+	public BufferedParser(Tokenizer tokenizer) {
 		this.buf_tokenizer = requireNonNull(tokenizer);
 	}
 
@@ -84,21 +113,63 @@ public class BufferedParser implements Parser {
 		return prog;
 	}
 
+	/*
+	 * parses the program one top-level statement at a time; returns the next
+	 * statement, or null after the last one; a statement is returned only if it
+	 * is followed by ';' or EOF
+	 */
+	public Stmt parseNextStmt() throws ParserException {
+		if (!streaming) {
+			streaming = true;
+			nextToken(); // one look-ahead symbol
+		} else if (buf_tokenizer.tokenType() == STMT_SEP)
+			nextToken();
+		else
+			return null; // EOF already matched
+		var stmt = parseStmt();
+		if (buf_tokenizer.tokenType() != STMT_SEP)
+			match(EOF); // last token must have type EOF
+		return stmt;
+	}
+
+	/*
+	 * parses a fragment of a program up to EOF: statements each followed by ';',
+	 * possibly none; if last is true the fragment ends the program, hence it is a
+	 * non empty sequence of statements without the final ';'
+	 */
+	public List<Stmt> parseFragment(boolean last) throws ParserException {
+		nextToken(); // one look-ahead symbol
+		var stmts = new ArrayList<Stmt>();
+		if (last) {
+			stmts.add(parseStmt());
+			while (buf_tokenizer.tokenType() == STMT_SEP) {
+				nextToken();
+				stmts.add(parseStmt());
+			}
+			match(EOF);
+		} else
+			while (buf_tokenizer.tokenType() != EOF) {
+				stmts.add(parseStmt());
+				consume(STMT_SEP);
+			}
+		return stmts;
+	}
+
 	@Override
 	public void close() throws IOException {
 		if (buf_tokenizer != null)
 			buf_tokenizer.close();
 	}
 
-	// parses a non empty sequence of statements, MoreStmt binary operator is right
-	// associative
+	// parses a non empty sequence of statements in a loop, into a flat list
 	private StmtSeq parseStmtSeq() throws ParserException {
-		var stmt = parseStmt();
-		if (buf_tokenizer.tokenType() == STMT_SEP) {
+		var stmts = new ArrayList<Stmt>();
+		stmts.add(parseStmt());
+		while (buf_tokenizer.tokenType() == STMT_SEP) {
 			nextToken();
-			return new MoreStmt(stmt, parseStmtSeq());
+			stmts.add(parseStmt());
 		}
-		return new SingleStmt(stmt);
+		return new StmtList(stmts);
 	}
 
 	// parses statements
@@ -174,99 +245,119 @@ public class BufferedParser implements Parser {
 	}
 
 	/*
-	 * parses expressions, starting from the lowest precedence operator AND which is
-	 * left-associative
+	 * parses expressions with an operator-precedence parser driven by precedences;
+	 * pending operators and brackets are kept on explicit stacks, hence nesting is
+	 * only bounded by the heap; binary operators are left-associative and unary
+	 * operators apply to atoms, as in the grammar above; on the operator stack
+	 * OPEN_PAR marks an open '(', START_PAIR and EXP_SEP mark a pair whose first
+	 * and second component is being parsed, respectively
 	 */
 	private Exp parseExp() throws ParserException {
-		var exp = parseEq();
-		while (buf_tokenizer.tokenType() == AND) {
-			nextToken();
-			exp = new And(exp, parseEq());
-		}
-		return exp;
-	}
-
-	/*
-	 * parses expressions, starting from the lowest precedence operator EQ which is
-	 * left-associative
-	 */
-	private Exp parseEq() throws ParserException {
-		var exp = parseLess();
-		while (buf_tokenizer.tokenType() == EQ) {
-			nextToken();
-			exp = new Eq(exp, parseLess());
-		}
-		return exp;
-	}
-
-	private Exp parseLess() throws ParserException {
-		var exp = parseAdd();
-		while (buf_tokenizer.tokenType() == LESS) {
-			nextToken();
-			exp = new Less(exp, parseAdd());
+		var operators = this.operators; // ordinals of token types
+		var operands = new Exp[operators.length]; // fresh for each expression, it is short-lived
+		int operatorCount = 0, operandCount = 0;
+		var type = buf_tokenizer.tokenType();
+		while (true) {
+			// unary operators and open brackets preceding an atom
+			while (prefixes[type.ordinal()]) {
+				if (operatorCount == operators.length)
+					operators = this.operators = Arrays.copyOf(operators, 2 * operatorCount);
+				operators[operatorCount++] = (byte) type.ordinal();
+				type = nextToken();
+			}
+			var atom = parseLiteral(type);
+			type = buf_tokenizer.tokenType();
+			while (true) {
+				while (operatorCount > 0 && unaryOperators[operators[operatorCount - 1]])
+					atom = unary(tokenTypes[operators[--operatorCount]], atom);
+				if (operandCount == operands.length)
+					operands = Arrays.copyOf(operands, 2 * operandCount);
+				operands[operandCount++] = atom;
+				// builds the pending binary operations having at least the same precedence
+				var precedence = precedences[type.ordinal()];
+				var minPrecedence = precedence > 0 ? precedence : 1;
+				while (operatorCount > 0 && precedences[operators[operatorCount - 1]] >= minPrecedence) {
+					var right = operands[--operandCount];
+					operands[operandCount - 1] = binary(tokenTypes[operators[--operatorCount]],
+							operands[operandCount - 1], right);
+				}
+				if (precedence > 0) { // the binary operator is pushed, then an atom is expected
+					if (operatorCount == operators.length)
+						operators = this.operators = Arrays.copyOf(operators, 2 * operatorCount);
+					operators[operatorCount++] = (byte) type.ordinal();
+					type = nextToken();
+					break;
+				}
+				// the innermost pending expression is complete
+				if (operatorCount == 0)
+					return operands[0];
+				if (operators[--operatorCount] == START_PAIR.ordinal()) {
+					consume(EXP_SEP);
+					operators[operatorCount++] = (byte) EXP_SEP.ordinal();
+					type = buf_tokenizer.tokenType();
+					break;
+				}
+				atom = operands[--operandCount];
+				if (operators[operatorCount] == OPEN_PAR.ordinal())
+					consume(CLOSE_PAR);
+				else { // EXP_SEP
+					consume(END_PAIR);
+					atom = new PairLit(operands[--operandCount], atom);
+				}
+				type = buf_tokenizer.tokenType();
+			}
 		}
-		return exp;
 	}
 
-	/*
-	 * parses expressions, starting from the lowest precedence operator PLUS which
-	 * is left-associative
-	 */
-	private Exp parseAdd() throws ParserException {
-		var exp = parseMul();
-		while (buf_tokenizer.tokenType() == PLUS) {
-			nextToken();
-			exp = new Add(exp, parseMul());
+	// parses the atoms which are literals or identifiers
+	private Exp parseLiteral(TokenType type) throws ParserException {
+		switch (type) {
+		case NUM:
+			return parseNum();
+		case IDENT:
+			return parseVarIdent();
+		case BOOL:
+			return parseBoolean();
+		case SEASON:
+			return parseSeason();
+		default:
+			unexpectedTokenError();
+			return null; // unreachable
 		}
-		return exp;
 	}
 
-	/*
-	 * parses expressions, starting from the lowest precedence operator TIMES which
-	 * is left-associative
-	 */
-	private Exp parseMul() throws ParserException {
-		var exp = parseAtom();
-		while (buf_tokenizer.tokenType() == TIMES) {
-			nextToken();
-			exp = new Mul(exp, parseAtom());
+	private static Exp binary(TokenType operator, Exp left, Exp right) {
+		switch (operator) {
+		case AND:
+			return new And(left, right);
+		case EQ:
+			return new Eq(left, right);
+		case LESS:
+			return new Less(left, right);
+		case PLUS:
+			return new Add(left, right);
+		default: // TIMES
+			return new Mul(left, right);
 		}
-		return exp;
 	}
 
-	// parses expressions of type Atom
-	private Exp parseAtom() throws ParserException {
-		switch (buf_tokenizer.tokenType()) {
-			default:
-				unexpectedTokenError();
-			case NUM:
-				return parseNum();
-			case IDENT:
-				return parseVarIdent();
-			case MINUS:
-				return parseMinus();
-			case SEASON_NUM:
-				return parseSeasonNum();
-			case SEASONOF:
-				return parseSeasonOf();
-			case OPEN_PAR:
-				return parseRoundPar();
-			case BOOL:
-				return parseBoolean();
-			case SEASON:
-				return parseSeason();
-			case NOT:
-				return parseNot();
-			case START_PAIR:
-				return parsePairLit();
-			case FST:
-				return parseFst();
-			case SND:
-				return parseSnd();
+	private static Exp unary(TokenType operator, Exp operand) {
+		switch (operator) {
+		case MINUS:
+			return new Sign(operand);
+		case SEASON_NUM:
+			return new SeasonNum(operand);
+		case SEASONOF:
+			return new SeasonOf(operand);
+		case FST:
+			return new Fst(operand);
+		case SND:
+			return new Snd(operand);
+		default: // NOT
+			return new Not(operand);
 		}
 	}
 
-
 	private SeasonLiteral parseSeason() throws ParserException {
 		var val = buf_tokenizer.seasonValue();
 		consume(SEASON); // or nextToken() since BOOL has already been recognized
@@ -288,61 +379,11 @@ public class BufferedParser implements Parser {
 	}
 
 	// parses variable identifiers
-	private VarIdentAST parseVarIdent() throws ParserException {
-		var name = buf_tokenizer.tokenString();
-		consume(IDENT); // or nextToken() since IDENT has already been recognized
-		return new VarIdentAST(name);
-	}
-
-	// parses MINUS Atom
-	private Sign parseMinus() throws ParserException {
-		consume(MINUS); // or nextToken() since MINUS has already been recognized
-		return new Sign(parseAtom());
-	}
-
-	private SeasonNum parseSeasonNum() throws ParserException {
-		consume(SEASON_NUM);
-		return new SeasonNum(parseAtom());
-	}
-
-	private SeasonOf parseSeasonOf() throws ParserException {
-		consume(SEASONOF);
-		return new SeasonOf(parseAtom());
-	}
-	// parses FST Atom
-	private Fst parseFst() throws ParserException {
-		consume(FST); // or nextToken() since FST has already been recognized
-		return new Fst(parseAtom());
-	}
-
-	// parses SND Atom
-	private Snd parseSnd() throws ParserException {
-		consume(SND); // or nextToken() since SND has already been recognized
-		return new Snd(parseAtom());
-	}
-
-	// parses NOT Atom
-	private Not parseNot() throws ParserException {
-		consume(NOT); // or nextToken() since NOT has already been recognized
-		return new Not(parseAtom());
-	}
-
-	// parses pairs
-	private PairLit parsePairLit() throws ParserException {
-		consume(START_PAIR); // or nextToken() since START_PAIR has already been recognized
-		var left = parseExp();
-		consume(EXP_SEP);
-		var right = parseExp();
-		consume(END_PAIR);
-		return new PairLit(left, right);
-	}
-
-	// parses OPEN_PAR Exp CLOSE_PAR
-	private Exp parseRoundPar() throws ParserException {
-		consume(OPEN_PAR); // or nextToken() since OPEN_PAR has already been recognized
-		var exp = parseExp();
-		consume(CLOSE_PAR);
-		return exp;
+	private VarIdent parseVarIdent() throws ParserException {
+		match(IDENT); // the canonical identifier is available only for IDENT
+		var ident = buf_tokenizer.identValue();
+		nextToken();
+		return ident;
 	}
 
 	private static BufferedReader tryOpenInput(String inputPath) throws FileNotFoundException {
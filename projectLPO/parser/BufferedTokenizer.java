@@ -7,6 +7,10 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import projectLPO.parser.ast.SymbolTable;
+import projectLPO.parser.ast.VarIdentAST;
+
+import static java.util.Objects.requireNonNull;
 import static java.util.Objects.requireNonNullElse;
 import static projectLPO.parser.TokenType.*;
 
@@ -24,6 +28,8 @@ public class BufferedTokenizer implements Tokenizer {
 	private int intValue; // the integer value if the currently recognized token has type NUM
 	private boolean boolValue; // the boolean value if the currently recognized token has type BOOL
 	private int seasonValue;
+	private VarIdentAST identValue; // the canonical identifier if the currently recognized token has type IDENT
+	private final SymbolTable symbolTable; // the table where identifiers are interned
 
 	static { // static initializer to define the regular expression of all valid lexemes
 		// remark: groups must correspond to the ordinal of the corresponding
@@ -80,8 +86,13 @@ public class BufferedTokenizer implements Tokenizer {
 		symbols.put("<", LESS);
 	}
 
-	public BufferedTokenizer(BufferedReader br) {
+	public BufferedTokenizer(BufferedReader br, SymbolTable symbolTable) {
 		this.buf_reader = new LineNumberReader(br);
+		this.symbolTable = requireNonNull(symbolTable);
+	}
+
+	public BufferedTokenizer(BufferedReader br) {
+		this(br, new SymbolTable());
 	}
 
 	private boolean hasNext() throws TokenizerException { // checks whether there are still lexemes
@@ -122,6 +133,9 @@ public class BufferedTokenizer implements Tokenizer {
 
 	private void semanticAnnotation() { // required for num or bool literals
 		switch (tokenType) {
+		case IDENT:
+			identValue = symbolTable.intern(tokenString);
+			break;
 		case NUM:
 			intValue = Integer.decode(tokenString);
 			break;
@@ -173,6 +187,12 @@ public class BufferedTokenizer implements Tokenizer {
 		return tokenString;
 	}
 
+	@Override
+	public VarIdentAST identValue() { // canonical identifier of the most recently recognized token, if of type IDENT
+		checkLegalState(IDENT);
+		return identValue;
+	}
+
 	@Override
 	public boolean boolValue() { // boolean value of the most recently recognized token, if of type BOOL
 		checkLegalState(BOOL);
@@ -0,0 +1,438 @@
+package projectLPO.parser;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import projectLPO.parser.ast.SymbolTable;
+import projectLPO.parser.ast.VarIdentAST;
+
+import static java.util.Objects.requireNonNull;
+import static projectLPO.parser.TokenType.*;
+
+/*
+ * table-driven tokenizer recognizing exactly the same lexemes as BufferedTokenizer;
+ * the input is scanned one line at a time, NUM literals are decoded in place and
+ * lexemes are turned into strings only when requested; subclasses define where
+ * the characters of the input come from
+ */
+public abstract class DfaTokenizer implements Tokenizer {
+
+	// character classes
+	private static final int C_OTHER = 0, C_WS = 1, C_LETTER = 2, C_ZERO = 3, C_DIGIT = 4, C_UNDERSCORE = 5,
+			C_PLUS = 6, C_TIMES = 7, C_EQ = 8, C_OPEN_PAR = 9, C_CLOSE_PAR = 10, C_SEMICOLON = 11, C_COMMA = 12,
+			C_OPEN_BRACE = 13, C_CLOSE_BRACE = 14, C_MINUS = 15, C_BANG = 16, C_AMP = 17, C_HASH = 18, C_LT = 19,
+			C_GT = 20, C_SLASH = 21, CLASSES = 22;
+
+	// automaton states, S_START is the initial one
+	private static final int S_START = 0, S_WS = 1, S_IDENT = 2, S_ZERO = 3, S_NUM = 4, S_PLUS = 5, S_TIMES = 6,
+			S_ASSIGN = 7, S_EQ = 8, S_OPEN_PAR = 9, S_CLOSE_PAR = 10, S_STMT_SEP = 11, S_EXP_SEP = 12,
+			S_OPEN_BLOCK = 13, S_CLOSE_BLOCK = 14, S_MINUS = 15, S_NOT = 16, S_AMP = 17, S_AND = 18, S_HASH = 19,
+			S_LESS = 20, S_START_PAIR = 21, S_GT = 22, S_END_PAIR = 23, S_SLASH = 24, S_COMMENT = 25, STATES = 26;
+
+	private static final byte[] charClass = new byte[128]; // class of each ASCII character, C_OTHER otherwise
+	private static final byte[][] delta = new byte[STATES][CLASSES]; // transition table, -1 if no transition
+	private static final TokenType[] accepting = new TokenType[STATES]; // token of accepting states, null otherwise
+	private static final String[] lexemes = new String[STATES]; // lexeme of states recognizing symbols
+
+	// keywords are recognized through a perfect hash on length, first and last character
+	private static final int KEYWORD_SLOTS = 32;
+	private static final String[] keywords = new String[KEYWORD_SLOTS];
+	private static final TokenType[] keywordTypes = new TokenType[KEYWORD_SLOTS];
+	private static final int[] keywordValues = new int[KEYWORD_SLOTS]; // boolean and season values
+
+	// lexemes of the token types having a single lexeme
+	private static final Map<TokenType, String> fixedLexemes = new EnumMap<>(TokenType.class);
+
+	protected int pos; // start of the unscanned part of the current line
+	protected int lineEnd; // end of the current line, the line is exhausted when pos == lineEnd
+	private final int linesBefore; // number of lines preceding the input
+	private int lineNumber; // number of lines read so far
+
+	private TokenType tokenType; // the type of the currently recognized token
+	private int tokenStart; // start of the currently recognized token
+	private String tokenString; // lexeme of the currently recognized token, computed lazily
+	private int skipStart = -1, skipEnd; // last lexeme skipped by next(), which is the lexeme of EOF
+	private int intValue; // the integer value if the currently recognized token has type NUM
+	private boolean boolValue; // the boolean value if the currently recognized token has type BOOL
+	private int seasonValue; // the season value if the currently recognized token has type SEASON
+	private VarIdentAST identValue; // the canonical identifier if the currently recognized token has type IDENT
+
+	private final SymbolTable symbolTable; // the table where identifiers are interned
+	private final Lexeme lexeme = new Lexeme(); // reusable view of the lexeme being interned
+
+	static { // static initializer to define the character classes
+		Arrays.fill(charClass, (byte) C_OTHER);
+		for (var c : " \t\u000B\f".toCharArray())
+			charClass[c] = C_WS;
+		for (var c = 'a'; c <= 'z'; c++)
+			charClass[c] = charClass[Character.toUpperCase(c)] = C_LETTER;
+		charClass['0'] = C_ZERO;
+		for (var c = '1'; c <= '9'; c++)
+			charClass[c] = C_DIGIT;
+		charClass['_'] = C_UNDERSCORE;
+		charClass['+'] = C_PLUS;
+		charClass['*'] = C_TIMES;
+		charClass['='] = C_EQ;
+		charClass['('] = C_OPEN_PAR;
+		charClass[')'] = C_CLOSE_PAR;
+		charClass[';'] = C_SEMICOLON;
+		charClass[','] = C_COMMA;
+		charClass['{'] = C_OPEN_BRACE;
+		charClass['}'] = C_CLOSE_BRACE;
+		charClass['-'] = C_MINUS;
+		charClass['!'] = C_BANG;
+		charClass['&'] = C_AMP;
+		charClass['#'] = C_HASH;
+		charClass['<'] = C_LT;
+		charClass['>'] = C_GT;
+		charClass['/'] = C_SLASH;
+	}
+
+	static { // static initializer to define the transition table
+		for (var row : delta)
+			Arrays.fill(row, (byte) -1);
+		edge(S_START, C_WS, S_WS);
+		edge(S_WS, C_WS, S_WS);
+		edge(S_START, C_LETTER, S_IDENT);
+		for (var c : new int[] { C_LETTER, C_ZERO, C_DIGIT, C_UNDERSCORE })
+			edge(S_IDENT, c, S_IDENT);
+		edge(S_START, C_ZERO, S_ZERO); // no transitions from S_ZERO: "01" is NUM(0) NUM(1)
+		edge(S_START, C_DIGIT, S_NUM);
+		edge(S_NUM, C_ZERO, S_NUM);
+		edge(S_NUM, C_DIGIT, S_NUM);
+		edge(S_START, C_PLUS, S_PLUS);
+		edge(S_START, C_TIMES, S_TIMES);
+		edge(S_START, C_EQ, S_ASSIGN);
+		edge(S_ASSIGN, C_EQ, S_EQ);
+		edge(S_START, C_OPEN_PAR, S_OPEN_PAR);
+		edge(S_START, C_CLOSE_PAR, S_CLOSE_PAR);
+		edge(S_START, C_SEMICOLON, S_STMT_SEP);
+		edge(S_START, C_COMMA, S_EXP_SEP);
+		edge(S_START, C_OPEN_BRACE, S_OPEN_BLOCK);
+		edge(S_START, C_CLOSE_BRACE, S_CLOSE_BLOCK);
+		edge(S_START, C_MINUS, S_MINUS);
+		edge(S_START, C_BANG, S_NOT);
+		edge(S_START, C_AMP, S_AMP);
+		edge(S_AMP, C_AMP, S_AND);
+		edge(S_START, C_HASH, S_HASH);
+		edge(S_START, C_LT, S_LESS);
+		edge(S_LESS, C_LT, S_START_PAIR);
+		edge(S_START, C_GT, S_GT);
+		edge(S_GT, C_GT, S_END_PAIR);
+		edge(S_START, C_SLASH, S_SLASH);
+		edge(S_SLASH, C_SLASH, S_COMMENT);
+		Arrays.fill(delta[S_COMMENT], (byte) S_COMMENT); // comments extend to the end of the line
+	}
+
+	static { // static initializer to define the accepting states
+		accepting[S_WS] = accepting[S_COMMENT] = SKIP;
+		accepting[S_IDENT] = IDENT;
+		accepting[S_ZERO] = accepting[S_NUM] = NUM;
+		symbol(S_PLUS, PLUS, "+");
+		symbol(S_TIMES, TIMES, "*");
+		symbol(S_ASSIGN, ASSIGN, "=");
+		symbol(S_EQ, EQ, "==");
+		symbol(S_OPEN_PAR, OPEN_PAR, "(");
+		symbol(S_CLOSE_PAR, CLOSE_PAR, ")");
+		symbol(S_STMT_SEP, STMT_SEP, ";");
+		symbol(S_EXP_SEP, EXP_SEP, ",");
+		symbol(S_OPEN_BLOCK, OPEN_BLOCK, "{");
+		symbol(S_CLOSE_BLOCK, CLOSE_BLOCK, "}");
+		symbol(S_MINUS, MINUS, "-");
+		symbol(S_NOT, NOT, "!");
+		symbol(S_AND, AND, "&&");
+		symbol(S_HASH, SEASON_NUM, "#");
+		symbol(S_LESS, LESS, "<");
+		symbol(S_START_PAIR, START_PAIR, "<<");
+		symbol(S_END_PAIR, END_PAIR, ">>");
+	}
+
+	static { // static initializer to define the table of keywords
+		keyword("print", PRINT, 0);
+		keyword("var", VAR, 0);
+		keyword("false", BOOL, 0);
+		keyword("true", BOOL, 1);
+		keyword("if", IF, 0);
+		keyword("else", ELSE, 0);
+		keyword("fst", FST, 0);
+		keyword("snd", SND, 0);
+		keyword("for", FOR, 0);
+		keyword("to", TO, 0);
+		keyword("Winter", SEASON, SeasonTypeConvertor.toInt("Winter"));
+		keyword("Spring", SEASON, SeasonTypeConvertor.toInt("Spring"));
+		keyword("Summer", SEASON, SeasonTypeConvertor.toInt("Summer"));
+		keyword("Fall", SEASON, SeasonTypeConvertor.toInt("Fall"));
+		keyword("seasonof", SEASONOF, 0);
+	}
+
+	private static void edge(int from, int charClass, int to) {
+		delta[from][charClass] = (byte) to;
+	}
+
+	private static void symbol(int state, TokenType tokenType, String lexeme) {
+		accepting[state] = tokenType;
+		lexemes[state] = lexeme;
+		fixedLexemes.put(tokenType, lexeme);
+	}
+
+	private static int keywordSlot(int length, int first, int last) {
+		return (4 * length + first + last) & (KEYWORD_SLOTS - 1);
+	}
+
+	private static void keyword(String lexeme, TokenType tokenType, int value) {
+		var slot = keywordSlot(lexeme.length(), lexeme.charAt(0), lexeme.charAt(lexeme.length() - 1));
+		if (keywords[slot] != null) // the hash function must be changed if new keywords collide
+			throw new AssertionError("Fatal error: keywords " + keywords[slot] + " and " + lexeme + " collide!");
+		keywords[slot] = lexeme;
+		keywordTypes[slot] = tokenType;
+		keywordValues[slot] = value;
+		if (tokenType != BOOL && tokenType != SEASON)
+			fixedLexemes.put(tokenType, lexeme);
+	}
+
+	// the lexeme of tokenType if it has a single one, null otherwise
+	static String fixedLexeme(TokenType tokenType) {
+		return fixedLexemes.get(tokenType);
+	}
+
+	/*
+	 * linesBefore is the number of lines preceding the input, when this is part of
+	 * a larger one; line numbers start from linesBefore + 1
+	 */
+	protected DfaTokenizer(int linesBefore, SymbolTable symbolTable) {
+		this.linesBefore = lineNumber = linesBefore;
+		this.symbolTable = requireNonNull(symbolTable);
+	}
+
+	protected DfaTokenizer(int linesBefore) {
+		this(linesBefore, new SymbolTable());
+	}
+
+	protected DfaTokenizer() {
+		this(0);
+	}
+
+	// the table where the identifiers of the input are interned
+	public SymbolTable symbolTable() {
+		return symbolTable;
+	}
+
+	// whether the first line of the input has been reached
+	protected final boolean hasLine() {
+		return lineNumber > linesBefore;
+	}
+
+	/*
+	 * skips the terminator of the current line, if any, and moves to the next line
+	 * by updating pos and lineEnd; line terminators are the same as for
+	 * BufferedReader.readLine(); returns false if EOF is reached
+	 */
+	protected abstract boolean nextLine() throws TokenizerException;
+
+	// returns the character at index i of the current line
+	protected abstract int charAt(int i);
+
+	// returns the text in [start,end) of the current line
+	protected abstract String text(int start, int end);
+
+	// returns the offset in the whole input of index i of the current line
+	protected int offset(int i) {
+		return i;
+	}
+
+	/*
+	 * must be called by subclasses before the text preceding pos is overwritten;
+	 * saves the skipped lexeme which may still be needed for EOF
+	 */
+	protected final void discardText() {
+		if (skipStart >= 0) {
+			tokenString = text(skipStart, skipEnd);
+			skipStart = -1;
+		}
+	}
+
+	private void unrecognizedToken() throws TokenizerException {
+		throw new TokenizerException(
+				"on line " + lineNumber + " unrecognized token starting at '" + text(pos, lineEnd) + "'");
+	}
+
+	// decodes in place the value of a NUM literal in [start,end)
+	private int decodeNum(int start, int end) {
+		long value = 0;
+		for (var i = start; i < end; i++) {
+			value = 10 * value + charAt(i) - '0';
+			if (value > Integer.MAX_VALUE) // lets Integer.decode report the overflow as BufferedTokenizer does
+				return Integer.decode(text(start, end));
+		}
+		return (int) value;
+	}
+
+	// returns the type of the identifier or keyword in [start,end)
+	private TokenType identOrKeyword(int start, int end) {
+		var length = end - start;
+		var slot = keywordSlot(length, charAt(start), charAt(end - 1));
+		var keyword = keywords[slot];
+		if (keyword == null || keyword.length() != length)
+			return ident(start, end);
+		for (var i = 0; i < length; i++)
+			if (keyword.charAt(i) != charAt(start + i))
+				return ident(start, end);
+		tokenString = keyword;
+		boolValue = keywordValues[slot] != 0;
+		seasonValue = keywordValues[slot];
+		return keywordTypes[slot];
+	}
+
+	// interns the identifier in [start,end), its name is the lexeme
+	private TokenType ident(int start, int end) {
+		lexeme.start = start;
+		lexeme.end = end;
+		identValue = symbolTable.intern(lexeme);
+		tokenString = identValue.getName();
+		return IDENT;
+	}
+
+	@Override
+	public TokenType next() throws TokenizerException {
+		tokenType = null;
+		tokenString = null;
+		skipStart = -1;
+		while (true) {
+			while (pos == lineEnd) {
+				if (!nextLine()) {
+					if (skipStart >= 0)
+						tokenString = text(skipStart, skipEnd);
+					tokenStart = pos;
+					return tokenType = EOF;
+				}
+				lineNumber++;
+			}
+			// runs the automaton looking for the longest lexeme starting at pos
+			int state = S_START, end = -1, acceptedState = -1;
+			for (var i = pos; i < lineEnd; i++) {
+				var c = charAt(i);
+				state = delta[state][c < 128 ? charClass[c] : C_OTHER];
+				if (state < 0)
+					break;
+				if (accepting[state] != null) {
+					end = i + 1;
+					acceptedState = state;
+				}
+			}
+			if (end < 0)
+				unrecognizedToken();
+			tokenStart = pos;
+			pos = end;
+			var type = accepting[acceptedState];
+			tokenString = null; // may have been set by discardText()
+			switch (type) {
+			case SKIP: // keeps advancing when skippable tokens are recognized
+				skipStart = tokenStart;
+				skipEnd = end;
+				tokenString = null;
+				continue;
+			case IDENT:
+				type = identOrKeyword(tokenStart, end);
+				break;
+			case NUM:
+				intValue = decodeNum(tokenStart, end);
+				break;
+			default:
+				tokenString = lexemes[acceptedState];
+			}
+			return tokenType = type;
+		}
+	}
+
+	private void checkLegalState() {
+		if (tokenType == null)
+			throw new IllegalStateException("No token was recognized");
+	}
+
+	private void checkLegalState(TokenType tokenType) {
+		if (this.tokenType != tokenType)
+			throw new IllegalStateException("No token of type " + tokenType + " was recognized");
+	}
+
+	@Override
+	public String tokenString() { // lexeme of the most recently recognized token, if any
+		checkLegalState();
+		if (tokenString == null && tokenType != EOF) // the lexeme of EOF is computed by next()
+			tokenString = text(tokenStart, pos);
+		return tokenString;
+	}
+
+	@Override
+	public VarIdentAST identValue() { // canonical identifier of the most recently recognized token, if of type IDENT
+		checkLegalState(IDENT);
+		return identValue;
+	}
+
+	@Override
+	public boolean boolValue() { // boolean value of the most recently recognized token, if of type BOOL
+		checkLegalState(BOOL);
+		return boolValue;
+	}
+
+	@Override
+	public int seasonValue() { // season value of the most recently recognized token, if of type SEASON
+		checkLegalState(SEASON);
+		return seasonValue;
+	}
+
+	@Override
+	public int intValue() { // integer value of the most recently recognized token, if of type NUM
+		checkLegalState(NUM);
+		return intValue;
+	}
+
+	@Override
+	public TokenType tokenType() { // type of the most recently recognized token, if any
+		checkLegalState();
+		return tokenType;
+	}
+
+	// offset in the whole input of the most recently recognized token, if any
+	public int tokenOffset() {
+		checkLegalState();
+		return offset(tokenStart);
+	}
+
+	// length of the lexeme of the most recently recognized token, if any
+	public int tokenLength() {
+		checkLegalState();
+		return pos - tokenStart;
+	}
+
+	@Override
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	// view of the lexeme in [start,end) of the current line, no string is built
+	private class Lexeme implements CharSequence {
+		private int start, end;
+
+		@Override
+		public int length() {
+			return end - start;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return (char) DfaTokenizer.this.charAt(start + index);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return text(this.start + start, this.start + end);
+		}
+
+		@Override
+		public String toString() {
+			return text(start, end);
+		}
+	}
+
+}
@@ -0,0 +1,157 @@
+package projectLPO.parser;
+
+import static projectLPO.parser.TokenType.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import projectLPO.parser.ast.ProgAST;
+import projectLPO.parser.ast.Prog;
+import projectLPO.parser.ast.Stmt;
+import projectLPO.parser.ast.StmtList;
+import projectLPO.parser.ast.SymbolTable;
+
+/*
+ * parser for successive versions of the same program, with the same input
+ * restrictions as MappedTokenizer; the top-level statements of the last parsed
+ * version are kept with their offsets, and only the statements touched by an
+ * edit are tokenized and parsed again, the others are reused; the edited
+ * region falls back to the whole text when the edit changes the boundaries of
+ * the statements around it, or contains an error
+ */
+public class IncrementalParser {
+
+	private final SymbolTable symbolTable; // shared by all versions, identifiers are compared by identity
+
+	private byte[] text; // the last parsed version, null if it could not be parsed
+	private final ArrayList<Stmt> stmts = new ArrayList<>(); // the top-level statements of text
+	private int[] starts = new int[16]; // offsets of the first tokens of stmts
+
+	public IncrementalParser(SymbolTable symbolTable) {
+		this.symbolTable = symbolTable;
+	}
+
+	public IncrementalParser() {
+		this(new SymbolTable());
+	}
+
+	// parses a new version of the program
+	public Prog parse(byte[] newText) throws ParserException {
+		if (text == null || !reparse(newText))
+			parseAll(newText);
+		return new ProgAST(new StmtList(stmts));
+	}
+
+	private void parseAll(byte[] newText) throws ParserException {
+		text = null;
+		stmts.clear();
+		var stream = lex(newText, 0, newText.length);
+		var newStmts = new BufferedParser(stream).parseFragment(true);
+		splice(0, 0, newStmts, stmtStarts(stream, newStmts.size()), 0);
+		text = newText;
+	}
+
+	/*
+	 * parses again the statements overlapping the region which differs between
+	 * text and newText; each statement is extended with the separator and the
+	 * skipped lexemes following it, the first one also with those preceding it;
+	 * returns false if the fragment does not parse on its own
+	 */
+	private boolean reparse(byte[] newText) {
+		var prefix = Arrays.mismatch(text, newText); // length of the common prefix
+		if (prefix < 0)
+			return true;
+		var suffix = 0; // length of the common suffix, not overlapping the prefix
+		var maxSuffix = Math.min(text.length, newText.length) - prefix;
+		while (suffix < maxSuffix && text[text.length - 1 - suffix] == newText[newText.length - 1 - suffix])
+			suffix++;
+		var shift = newText.length - text.length;
+		var first = Math.max(0, lastStartBefore(prefix + 1));
+		var last = Math.max(first, lastStartBefore(text.length - suffix));
+		var isLast = last == stmts.size() - 1;
+		var start = first == 0 ? 0 : starts[first];
+		var end = isLast ? newText.length : starts[last + 1] + shift;
+		var stream = lex(newText, start, end);
+		List<Stmt> newStmts;
+		try {
+			newStmts = new BufferedParser(stream).parseFragment(isLast);
+		} catch (ParserException | NumberFormatException e) { // the error is reported by parseAll()
+			return false;
+		}
+		if (!isLast && !endsOutsideComment(newText, stream, start, end))
+			return false;
+		splice(first, last + 1, newStmts, stmtStarts(stream, newStmts.size()), shift);
+		text = newText;
+		return true;
+	}
+
+	// index of the last statement starting before offset, -1 if none
+	private int lastStartBefore(int offset) {
+		var index = Arrays.binarySearch(starts, 0, stmts.size(), offset);
+		return index >= 0 ? index - 1 : -index - 2;
+	}
+
+	private PackedTokenStream lex(byte[] newText, int start, int end) {
+		return PackedTokenStream.lex(new MappedTokenizer(ByteBuffer.wrap(newText), start, end, 0, symbolTable));
+	}
+
+	/*
+	 * a line comment at the end of a fragment would swallow the following
+	 * statement when the whole text is tokenized
+	 */
+	private static boolean endsOutsideComment(byte[] text, PackedTokenStream stream, int start, int end) {
+		var last = stream.size() - 2; // the last token before EOF
+		var tailStart = last < 0 ? start : stream.offset(last) + stream.length(last);
+		for (var i = end - 1; i >= tailStart; i--) {
+			var c = text[i];
+			if (c == '\n' || c == '\r')
+				return true;
+			if (c != ' ' && c != '\t' && c != '\u000B' && c != '\f')
+				return false;
+		}
+		return true;
+	}
+
+	// offsets of the first tokens of the top-level statements in stream
+	private static int[] stmtStarts(PackedTokenStream stream, int count) {
+		var result = new int[count];
+		var depth = 0; // nesting level of blocks
+		var stmt = 0;
+		var atStart = true;
+		for (var i = 0; stmt < count; i++) {
+			var type = stream.type(i);
+			if (atStart) {
+				result[stmt++] = stream.offset(i);
+				atStart = false;
+			}
+			if (type == OPEN_BLOCK)
+				depth++;
+			else if (type == CLOSE_BLOCK)
+				depth--;
+			else if (type == STMT_SEP && depth == 0)
+				atStart = true;
+		}
+		return result;
+	}
+
+	/*
+	 * replaces the statements in [from,to) with newStmts, starting at newStarts;
+	 * the offsets of the following statements are moved by shift
+	 */
+	private void splice(int from, int to, List<Stmt> newStmts, int[] newStarts, int shift) {
+		var size = stmts.size();
+		var newSize = size - (to - from) + newStmts.size();
+		if (newSize > starts.length)
+			starts = Arrays.copyOf(starts, Math.max(2 * starts.length, newSize));
+		var moved = from + newStmts.size();
+		System.arraycopy(starts, to, starts, moved, size - to);
+		for (var i = moved; i < newSize; i++)
+			starts[i] += shift;
+		System.arraycopy(newStarts, 0, starts, from, newStarts.length);
+		stmts.subList(from, to).clear();
+		stmts.addAll(from, newStmts);
+	}
+
+}
@@ -0,0 +1,109 @@
+package projectLPO.parser;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+
+import projectLPO.parser.ast.SymbolTable;
+
+/*
+ * DFA tokenizer scanning the bytes of the whole input, which must be in an
+ * ASCII-compatible encoding; the input is memory-mapped when read from a file,
+ * there is no per-line allocation and no charset decoding, except for the text of
+ * lexemes actually requested
+ */
+public class MappedTokenizer extends DfaTokenizer {
+
+	private static final int STREAM_BUFFER_SIZE = 1 << 20; // initial size of the buffer for streams
+
+	private final ByteBuffer buf; // the whole input
+	private final int limit; // end of the input in buf
+
+	/*
+	 * tokenizes the bytes of buf in [start,end), which is preceded by linesBefore
+	 * lines; start must be the beginning of a line
+	 */
+	public MappedTokenizer(ByteBuffer buf, int start, int end, int linesBefore, SymbolTable symbolTable) {
+		super(linesBefore, symbolTable);
+		this.buf = buf;
+		this.limit = end;
+		pos = lineEnd = start;
+	}
+
+	public MappedTokenizer(ByteBuffer buf, int start, int end, int linesBefore) {
+		this(buf, start, end, linesBefore, new SymbolTable());
+	}
+
+	// tokenizes all bytes of buf up to its limit
+	public MappedTokenizer(ByteBuffer buf) {
+		this(buf, 0, buf.limit(), 0);
+	}
+
+	// maps in memory the file with path inputPath
+	public static ByteBuffer mapFile(String inputPath) throws IOException {
+		try (var channel = new FileInputStream(inputPath).getChannel()) {
+			return channel.map(READ_ONLY, 0, channel.size());
+		}
+	}
+
+	// reads the whole stream in a direct buffer, for inputs which cannot be mapped
+	public static ByteBuffer readStream(InputStream in) throws IOException {
+		var channel = Channels.newChannel(in);
+		var buf = ByteBuffer.allocateDirect(STREAM_BUFFER_SIZE);
+		while (channel.read(buf) >= 0)
+			if (!buf.hasRemaining())
+				buf = ByteBuffer.allocateDirect(2 * buf.capacity()).put(buf.flip());
+		return buf.flip();
+	}
+
+	public static MappedTokenizer map(String inputPath) throws IOException {
+		return new MappedTokenizer(mapFile(inputPath));
+	}
+
+	public static MappedTokenizer read(InputStream in) throws IOException {
+		return new MappedTokenizer(readStream(in));
+	}
+
+	@Override
+	protected boolean nextLine() {
+		if (hasLine()) { // skips the terminator of the current line
+			if (lineEnd == limit) // the last line has no terminator
+				return false;
+			pos = lineEnd + 1;
+			if (buf.get(lineEnd) == '\r' && pos < limit && buf.get(pos) == '\n')
+				pos++;
+		}
+		if (pos == limit)
+			return false; // EOF reached
+		var end = pos;
+		for (; end < limit; end++) {
+			var c = buf.get(end);
+			if (c == '\n' || c == '\r')
+				break;
+		}
+		lineEnd = end;
+		return true;
+	}
+
+	@Override
+	protected int charAt(int i) {
+		return buf.get(i) & 0xFF;
+	}
+
+	@Override
+	protected String text(int start, int end) {
+		var bytes = new byte[end - start];
+		buf.get(start, bytes);
+		return new String(bytes, Charset.defaultCharset());
+	}
+
+	@Override
+	public void close() {
+	}
+
+}
@@ -0,0 +1,293 @@
+package projectLPO.parser;
+
+import static projectLPO.parser.TokenType.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import projectLPO.parser.ast.SymbolTable;
+import projectLPO.parser.ast.VarIdentAST;
+
+/*
+ * the tokens of a whole program stored in parallel primitive arrays; the stream
+ * implements Tokenizer and can be replayed any number of times without allocating,
+ * a tokenizer error is raised again when the stream is replayed up to its position
+ */
+public class PackedTokenStream implements Tokenizer {
+
+	private static final TokenType[] tokenTypes = TokenType.values();
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final int MIN_CHUNK_SIZE = 1 << 16; // minimum size in bytes of chunks tokenized in parallel
+
+	private byte[] types = new byte[INITIAL_CAPACITY]; // ordinals of the token types
+	private int[] offsets = new int[INITIAL_CAPACITY]; // offsets of the lexemes in the input
+	private int[] lengths = new int[INITIAL_CAPACITY]; // lengths of the lexemes
+	private int[] lines = new int[INITIAL_CAPACITY]; // line numbers
+	private int[] payloads = new int[INITIAL_CAPACITY]; // values of literals and ids of identifiers
+	private int size; // number of stored tokens
+
+	private final SymbolTable symbolTable; // the table of the identifiers in the stream
+	private String eofString; // the lexeme associated with EOF
+	private Exception error; // the error which stopped tokenization, if any
+	private int errorLine; // the line where the error was found
+
+	private int current = -1; // index of the currently recognized token during replay
+
+	private PackedTokenStream(SymbolTable symbolTable) {
+		this.symbolTable = symbolTable;
+	}
+
+	// tokenizes the whole input of tokenizer, which is not closed
+	public static PackedTokenStream lex(DfaTokenizer tokenizer) {
+		var stream = new PackedTokenStream(tokenizer.symbolTable());
+		try {
+			TokenType type;
+			do {
+				type = tokenizer.next();
+				stream.add(tokenizer);
+			} while (type != EOF);
+		} catch (TokenizerException | NumberFormatException e) { // NUM literals may be out of range
+			stream.error = e;
+			stream.errorLine = tokenizer.getLineNumber();
+		}
+		return stream;
+	}
+
+	/*
+	 * tokenizes the whole input on the common fork/join pool; the input is split
+	 * in chunks at line boundaries, which are safe since no token spans more lines,
+	 * then the streams of the chunks are joined in order; the result is the same
+	 * as for a single MappedTokenizer, including the first error in the input;
+	 * chunks use private symbol tables, whose identifiers are interned in
+	 * symbolTable when the chunks are joined
+	 */
+	public static PackedTokenStream lexInParallel(ByteBuffer input, SymbolTable symbolTable) {
+		var bounds = chunkBounds(input);
+		var chunks = new ArrayList<ForkJoinTask<PackedTokenStream>>();
+		for (var k = 0; k + 1 < bounds.length; k++) {
+			int start = bounds[k], end = bounds[k + 1];
+			chunks.add(ForkJoinPool.commonPool().submit(() -> lex(new MappedTokenizer(input, start, end, 0))));
+		}
+		var stream = new PackedTokenStream(symbolTable);
+		var lines = 0; // number of lines in the chunks already joined
+		for (var k = 0; k < chunks.size(); k++) {
+			var chunk = chunks.get(k).join();
+			var lineShift = lines;
+			if (chunk.error != null) {
+				chunks.subList(k + 1, chunks.size()).forEach(task -> task.cancel(false));
+				if (lines > 0) { // tokenizes again so that the error message reports the right line
+					chunk = lex(new MappedTokenizer(input, bounds[k], bounds[k + 1], lines));
+					lineShift = 0;
+				}
+			}
+			stream.append(chunk, lineShift);
+			if (chunk.error != null)
+				break;
+			lines += chunk.lines[chunk.size - 1]; // the line of EOF is the number of lines of the chunk
+		}
+		return stream;
+	}
+
+	public static PackedTokenStream lexInParallel(ByteBuffer input) {
+		return lexInParallel(input, new SymbolTable());
+	}
+
+	// splits input in chunks starting right after a '\n', returns the bounds of the chunks
+	private static int[] chunkBounds(ByteBuffer input) {
+		var limit = input.limit();
+		var chunks = Math.max(1, Math.min(limit / MIN_CHUNK_SIZE, 4 * ForkJoinPool.getCommonPoolParallelism()));
+		var bounds = new int[chunks + 1];
+		var count = 1; // bounds[0] is 0
+		for (var k = 1; k < chunks; k++) {
+			var bound = Math.max((int) ((long) limit * k / chunks), bounds[count - 1] + 1);
+			while (bound < limit && input.get(bound - 1) != '\n')
+				bound++;
+			if (bound < limit)
+				bounds[count++] = bound;
+		}
+		bounds[count++] = limit;
+		return Arrays.copyOf(bounds, count);
+	}
+
+	/*
+	 * appends the tokens of other, whose line numbers are shifted by lineShift; the
+	 * EOF of this stream is replaced by the tokens of other
+	 */
+	private void append(PackedTokenStream other, int lineShift) {
+		var previousEofString = eofString;
+		if (size > 0 && types[size - 1] == EOF.ordinal())
+			size--;
+		ensureCapacity(size + other.size);
+		System.arraycopy(other.types, 0, types, size, other.size);
+		System.arraycopy(other.offsets, 0, offsets, size, other.size);
+		System.arraycopy(other.lengths, 0, lengths, size, other.size);
+		var idMap = new int[other.symbolTable.size()]; // maps ids in other.symbolTable to ids in symbolTable
+		for (var i = 0; i < idMap.length; i++)
+			idMap[i] = symbolTable.intern(other.symbolTable.get(i).getName()).getId();
+		for (var i = 0; i < other.size; i++) {
+			lines[size + i] = other.lines[i] + lineShift;
+			payloads[size + i] = other.types[i] == IDENT.ordinal() ? idMap[other.payloads[i]]
+					: other.payloads[i];
+		}
+		size += other.size;
+		// if other only contains EOF, its lexeme may have been skipped before other
+		eofString = other.size == 1 && other.eofString == null ? previousEofString : other.eofString;
+		error = other.error;
+		errorLine = other.errorLine + lineShift;
+	}
+
+	private void ensureCapacity(int minCapacity) {
+		if (minCapacity <= types.length)
+			return;
+		var capacity = Math.max(2 * types.length, minCapacity);
+		types = Arrays.copyOf(types, capacity);
+		offsets = Arrays.copyOf(offsets, capacity);
+		lengths = Arrays.copyOf(lengths, capacity);
+		lines = Arrays.copyOf(lines, capacity);
+		payloads = Arrays.copyOf(payloads, capacity);
+	}
+
+	// appends the currently recognized token of tokenizer
+	private void add(DfaTokenizer tokenizer) {
+		ensureCapacity(size + 1);
+		var type = tokenizer.tokenType();
+		types[size] = (byte) type.ordinal();
+		offsets[size] = tokenizer.tokenOffset();
+		lengths[size] = tokenizer.tokenLength();
+		lines[size] = tokenizer.getLineNumber();
+		switch (type) {
+		case IDENT:
+			payloads[size] = tokenizer.identValue().getId();
+			break;
+		case NUM:
+			payloads[size] = tokenizer.intValue();
+			break;
+		case BOOL:
+			payloads[size] = tokenizer.boolValue() ? 1 : 0;
+			break;
+		case SEASON:
+			payloads[size] = tokenizer.seasonValue();
+			break;
+		case EOF:
+			eofString = tokenizer.tokenString();
+			break;
+		default: // no payload required
+			break;
+		}
+		size++;
+	}
+
+	// number of stored tokens, including EOF unless tokenization failed
+	public int size() {
+		return size;
+	}
+
+	// type of the token at index i
+	public TokenType type(int i) {
+		return tokenTypes[types[i]];
+	}
+
+	// offset in the input of the lexeme of the token at index i
+	public int offset(int i) {
+		return offsets[i];
+	}
+
+	// length of the lexeme of the token at index i
+	public int length(int i) {
+		return lengths[i];
+	}
+
+	// restarts the replay from the first token
+	public void rewind() {
+		current = -1;
+	}
+
+	@Override
+	public TokenType next() throws TokenizerException {
+		if (current + 1 == size) {
+			if (error != null) {
+				current = size;
+				if (error instanceof TokenizerException)
+					throw (TokenizerException) error;
+				throw (NumberFormatException) error;
+			}
+			return EOF; // stays on EOF, as tokenizers do
+		}
+		return tokenTypes[types[++current]];
+	}
+
+	private void checkLegalState() {
+		if (current < 0 || current == size)
+			throw new IllegalStateException("No token was recognized");
+	}
+
+	private void checkLegalState(TokenType tokenType) {
+		if (current < 0 || current == size || types[current] != tokenType.ordinal())
+			throw new IllegalStateException("No token of type " + tokenType + " was recognized");
+	}
+
+	@Override
+	public TokenType tokenType() { // type of the most recently recognized token, if any
+		checkLegalState();
+		return tokenTypes[types[current]];
+	}
+
+	@Override
+	public String tokenString() { // lexeme of the most recently recognized token, if any
+		var type = tokenType();
+		var payload = payloads[current];
+		switch (type) {
+		case IDENT:
+			return symbolTable.get(payload).getName();
+		case NUM: // NUM literals have no leading zeros
+			return Integer.toString(payload);
+		case BOOL:
+			return Boolean.toString(payload != 0);
+		case SEASON:
+			return SeasonTypeConvertor.toString(payload);
+		case EOF:
+			return eofString;
+		default:
+			return DfaTokenizer.fixedLexeme(type);
+		}
+	}
+
+	@Override
+	public int intValue() { // integer value of the most recently recognized token, if of type NUM
+		checkLegalState(NUM);
+		return payloads[current];
+	}
+
+	@Override
+	public VarIdentAST identValue() { // canonical identifier of the most recently recognized token, if of type IDENT
+		checkLegalState(IDENT);
+		return symbolTable.get(payloads[current]);
+	}
+
+	@Override
+	public boolean boolValue() { // boolean value of the most recently recognized token, if of type BOOL
+		checkLegalState(BOOL);
+		return payloads[current] != 0;
+	}
+
+	@Override
+	public int seasonValue() { // season value of the most recently recognized token, if of type SEASON
+		checkLegalState(SEASON);
+		return payloads[current];
+	}
+
+	@Override
+	public int getLineNumber() {
+		if (current == size)
+			return errorLine;
+		return current < 0 ? 0 : lines[current];
+	}
+
+	@Override
+	public void close() {
+	}
+
+}
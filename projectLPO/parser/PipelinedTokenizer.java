@@ -0,0 +1,277 @@
+package projectLPO.parser;
+
+import static projectLPO.parser.TokenType.*;
+
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+import projectLPO.parser.ast.VarIdent;
+
+/*
+ * tokenizer running another tokenizer on its own thread; the producer thread
+ * writes the tokens in a single-producer/single-consumer ring of records stored
+ * in parallel arrays, and publishes them in batches, the consumer reads them
+ * through the Tokenizer interface; no lock is used, each side spins for a while
+ * and then parks when the ring is empty or full; an error of the tokenizer is
+ * raised by next() after all tokens preceding it, wrapped in an
+ * IllegalStateException if unexpected; since tokens are published in batches,
+ * interactive input is not parsed until EOF or a batch is complete
+ */
+public class PipelinedTokenizer implements Tokenizer {
+
+	private static final TokenType[] tokenTypes = TokenType.values();
+	private static final int CAPACITY = 1 << 12; // number of records in the ring, a power of 2
+	private static final int MASK = CAPACITY - 1;
+	private static final int BATCH = 1 << 8; // records published or released together, a power of 2
+	// busy waiting iterations before parking, useless with a single processor
+	private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 1 << 10 : 0;
+
+	private final Tokenizer source; // the tokenizer run by the producer
+	private Thread producer, consumer; // consumer is set before it parks
+
+	// the records of the ring, with the same payloads as in PackedTokenStream
+	private final byte[] types = new byte[CAPACITY];
+	private final int[] lines = new int[CAPACITY];
+	private final int[] payloads = new int[CAPACITY];
+	private final VarIdent[] idents = new VarIdent[CAPACITY];
+
+	private volatile long published; // records before published can be read by the consumer
+	private volatile long released; // records before released can be overwritten by the producer
+	private volatile boolean finished; // whether the producer has published its last record
+	private volatile boolean consumerParked, producerParked, closed;
+
+	// written by the producer before they are published
+	private String eofString; // the lexeme associated with EOF
+	private Throwable error; // the error which stopped tokenization, if any
+	private int errorLine; // the line where the error was found
+
+	// state of the consumer
+	private long current = -1; // index of the currently recognized token
+	private long available; // last read value of published
+
+	private PipelinedTokenizer(Tokenizer source) {
+		this.source = source;
+	}
+
+	// starts tokenizing with source on a new thread; source is closed by close()
+	public static PipelinedTokenizer start(Tokenizer source) {
+		var tokenizer = new PipelinedTokenizer(source);
+		tokenizer.producer = new Thread(tokenizer::produce, "tokenizer");
+		tokenizer.producer.setDaemon(true);
+		tokenizer.producer.start();
+		return tokenizer;
+	}
+
+	// body of the producer thread
+	private void produce() {
+		long tail = 0, limit = CAPACITY; // the ring is full when tail reaches limit
+		try {
+			TokenType type;
+			do {
+				if (tail == limit) {
+					publish(tail);
+					if ((limit = waitForSpace(tail)) < 0)
+						return; // closed by the consumer
+				}
+				type = source.next();
+				write((int) tail & MASK, type);
+				tail++;
+				if ((tail & (BATCH - 1)) == 0)
+					publish(tail);
+			} while (type != EOF);
+		} catch (Throwable e) { // NUM literals may be out of range, unexpected errors are raised by next() too
+			error = e;
+			errorLine = source.getLineNumber();
+		} finally { // the consumer must never wait for a stopped producer
+			publish(tail);
+			finished = true;
+			if (consumerParked)
+				LockSupport.unpark(consumer);
+		}
+	}
+
+	private void write(int slot, TokenType type) {
+		types[slot] = (byte) type.ordinal();
+		lines[slot] = source.getLineNumber();
+		switch (type) {
+		case IDENT:
+			idents[slot] = source.identValue();
+			break;
+		case NUM:
+			payloads[slot] = source.intValue();
+			break;
+		case BOOL:
+			payloads[slot] = source.boolValue() ? 1 : 0;
+			break;
+		case SEASON:
+			payloads[slot] = source.seasonValue();
+			break;
+		case EOF:
+			eofString = source.tokenString();
+			break;
+		default: // no payload required
+			break;
+		}
+	}
+
+	private void publish(long tail) {
+		published = tail;
+		if (consumerParked)
+			LockSupport.unpark(consumer);
+	}
+
+	// waits until the ring is not full, returns the new limit of tail, or -1 if closed
+	private long waitForSpace(long tail) {
+		for (var spins = 0;; spins++) {
+			var limit = released + CAPACITY;
+			if (tail < limit)
+				return limit;
+			if (closed)
+				return -1;
+			if (spins < SPINS)
+				Thread.onSpinWait();
+			else {
+				producerParked = true;
+				if (released + CAPACITY == tail && !closed)
+					LockSupport.park(this);
+				producerParked = false;
+			}
+		}
+	}
+
+	// waits until the record after current is published or the producer has finished
+	private void waitForRecord() {
+		for (var spins = 0;; spins++) {
+			var isFinished = finished; // read before published, which is then final
+			available = published;
+			if (current + 1 < available || isFinished)
+				return;
+			if (spins < SPINS)
+				Thread.onSpinWait();
+			else {
+				release(current);
+				consumer = Thread.currentThread();
+				consumerParked = true;
+				if (published == available && !finished)
+					LockSupport.park(this);
+				consumerParked = false;
+			}
+		}
+	}
+
+	private void release(long index) {
+		released = index;
+		if (producerParked)
+			LockSupport.unpark(producer);
+	}
+
+	private int slot() {
+		return (int) current & MASK;
+	}
+
+	@Override
+	public TokenType next() throws TokenizerException {
+		if (current >= 0 && current < available && types[slot()] == EOF.ordinal())
+			return EOF; // stays on EOF, as tokenizers do
+		if (current + 1 >= available) {
+			waitForRecord();
+			if (current + 1 >= available) { // the producer stopped because of error
+				current = available;
+				if (error instanceof TokenizerException e)
+					throw e;
+				if (error instanceof NumberFormatException e)
+					throw e; // as for the other tokenizers
+				throw new IllegalStateException("Tokenizer thread failed", error);
+			}
+		}
+		if ((++current & (BATCH - 1)) == 0)
+			release(current);
+		return tokenTypes[types[slot()]];
+	}
+
+	private void checkLegalState() {
+		if (current < 0 || current == available)
+			throw new IllegalStateException("No token was recognized");
+	}
+
+	private void checkLegalState(TokenType tokenType) {
+		checkLegalState();
+		if (types[slot()] != tokenType.ordinal())
+			throw new IllegalStateException("No token of type " + tokenType + " was recognized");
+	}
+
+	@Override
+	public TokenType tokenType() { // type of the most recently recognized token, if any
+		checkLegalState();
+		return tokenTypes[types[slot()]];
+	}
+
+	@Override
+	public String tokenString() { // lexeme of the most recently recognized token, if any
+		var type = tokenType();
+		var payload = payloads[slot()];
+		switch (type) {
+		case IDENT:
+			return idents[slot()].getName();
+		case NUM: // NUM literals have no leading zeros
+			return Integer.toString(payload);
+		case BOOL:
+			return Boolean.toString(payload != 0);
+		case SEASON:
+			return SeasonTypeConvertor.toString(payload);
+		case EOF:
+			return eofString;
+		default:
+			return DfaTokenizer.fixedLexeme(type);
+		}
+	}
+
+	@Override
+	public int intValue() { // integer value of the most recently recognized token, if of type NUM
+		checkLegalState(NUM);
+		return payloads[slot()];
+	}
+
+	@Override
+	public VarIdent identValue() { // canonical identifier of the most recently recognized token, if of type IDENT
+		checkLegalState(IDENT);
+		return idents[slot()];
+	}
+
+	@Override
+	public boolean boolValue() { // boolean value of the most recently recognized token, if of type BOOL
+		checkLegalState(BOOL);
+		return payloads[slot()] != 0;
+	}
+
+	@Override
+	public int seasonValue() { // season value of the most recently recognized token, if of type SEASON
+		checkLegalState(SEASON);
+		return payloads[slot()];
+	}
+
+	@Override
+	public int getLineNumber() {
+		if (current >= 0 && current == available)
+			return errorLine;
+		return current < 0 ? 0 : lines[slot()];
+	}
+
+	// stops the producer, then closes its tokenizer
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		LockSupport.unpark(producer);
+		var interrupted = false;
+		while (producer.isAlive())
+			try {
+				producer.join();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+		source.close();
+	}
+
+}
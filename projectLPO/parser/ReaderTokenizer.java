@@ -0,0 +1,110 @@
+package projectLPO.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import projectLPO.parser.ast.SymbolTable;
+
+/*
+ * DFA tokenizer reading characters from a reader; each line is entirely loaded
+ * inside a reusable character window, hence no string is built per line
+ */
+public class ReaderTokenizer extends DfaTokenizer {
+
+	private final Reader reader; // the reader decorated by the tokenizer
+	private char[] buf = new char[8192]; // window over the input
+	private int limit; // end of the valid characters in buf
+	private boolean eof; // whether the reader has been exhausted
+	private int discarded; // number of characters moved out of the window
+
+	public ReaderTokenizer(Reader reader, SymbolTable symbolTable) {
+		super(0, symbolTable);
+		this.reader = reader;
+	}
+
+	public ReaderTokenizer(Reader reader) {
+		this(reader, new SymbolTable());
+	}
+
+	/*
+	 * reads more characters at the end of the window, after moving the unscanned
+	 * part to its beginning; returns false if no characters could be read
+	 */
+	private boolean fill() throws TokenizerException {
+		if (eof)
+			return false;
+		if (pos > 0) {
+			discardText();
+			System.arraycopy(buf, pos, buf, 0, limit - pos);
+			discarded += pos;
+			limit -= pos;
+			pos = 0;
+		}
+		if (limit == buf.length)
+			buf = Arrays.copyOf(buf, 2 * buf.length);
+		int read;
+		try {
+			read = reader.read(buf, limit, buf.length - limit);
+		} catch (IOException e) {
+			throw new TokenizerException(e);
+		}
+		if (read < 0) {
+			eof = true;
+			return false;
+		}
+		limit += read;
+		return true;
+	}
+
+	@Override
+	protected boolean nextLine() throws TokenizerException {
+		if (hasLine()) { // skips the terminator of the current line
+			if (lineEnd == limit) // the last line has no terminator
+				return false;
+			pos = lineEnd + 1;
+			if (buf[lineEnd] == '\r' && (pos < limit || fill()) && buf[pos] == '\n')
+				pos++;
+		}
+		if (pos == limit && !fill())
+			return false; // EOF reached
+		var end = pos;
+		while (true) {
+			for (; end < limit; end++) {
+				var c = buf[end];
+				if (c == '\n' || c == '\r') {
+					lineEnd = end;
+					return true;
+				}
+			}
+			var scanned = end - pos;
+			if (!fill()) {
+				lineEnd = limit;
+				return true;
+			}
+			end = pos + scanned;
+		}
+	}
+
+	@Override
+	protected int charAt(int i) {
+		return buf[i];
+	}
+
+	@Override
+	protected String text(int start, int end) {
+		return new String(buf, start, end - start);
+	}
+
+	@Override
+	protected int offset(int i) {
+		return discarded + i;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (reader != null)
+			reader.close();
+	}
+
+}
@@ -0,0 +1,18 @@
+package projectLPO.parser;
+
+// the seasons in the order of their numbers, which are their ordinals
+public enum Season {
+	WINTER, SPRING, SUMMER, FALL;
+
+	private static final Season[] seasons = values();
+
+	// the season with the given number, an IndexOutOfBoundsException is thrown if there is none
+	public static Season of(int num) {
+		return seasons[num];
+	}
+
+	@Override
+	public String toString() {
+		return SeasonTypeConvertor.toString(ordinal());
+	}
+}
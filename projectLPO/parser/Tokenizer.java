@@ -2,6 +2,8 @@ package projectLPO.parser;
 
 import java.io.IOException;
 
+import projectLPO.parser.ast.VarIdent;
+
 public interface Tokenizer extends AutoCloseable {
 
 	TokenType next() throws TokenizerException;
@@ -14,6 +16,8 @@ public interface Tokenizer extends AutoCloseable {
 
 	boolean boolValue();
 
+	VarIdent identValue(); // the canonical identifier, interned in the symbol table of the tokenizer
+
 	public void close() throws IOException;
 
 	int getLineNumber();
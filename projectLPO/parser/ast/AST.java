@@ -2,6 +2,6 @@ package projectLPO.parser.ast;
 
 import projectLPO.visitors.Visitor;
 
-public interface AST {
+public sealed interface AST permits Exp, Stmt, StmtSeq, Prog {
 	<T> T accept(Visitor<T> visitor);
 }
@@ -2,7 +2,7 @@ package projectLPO.parser.ast;
 
 import static java.util.Objects.requireNonNull;
 
-public abstract class AbstractAssignStmt implements Stmt {
+public abstract sealed class AbstractAssignStmt implements Stmt permits AssignStmt, VarStmt {
 	protected final VarIdent ident;
 	protected final Exp exp;
 
@@ -11,6 +11,14 @@ public abstract class AbstractAssignStmt implements Stmt {
 		this.exp = requireNonNull(exp);
 	}
 
+	public VarIdent getIdent() {
+		return ident;
+	}
+
+	public Exp getExp() {
+		return exp;
+	}
+
 	@Override
 	public String toString() {
 		return getClass().getSimpleName() + "(" + ident + "," + exp + ")";
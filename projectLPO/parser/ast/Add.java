@@ -2,7 +2,7 @@ package projectLPO.parser.ast;
 
 import projectLPO.visitors.Visitor;
 
-public class Add extends BinaryOp {
+public final class Add extends BinaryOp {
 	public Add(Exp left, Exp right) {
 		super(left, right);
 	}
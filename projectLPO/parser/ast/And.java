@@ -2,7 +2,7 @@ package projectLPO.parser.ast;
 
 import projectLPO.visitors.Visitor;
 
-public class And extends BinaryOp {
+public final class And extends BinaryOp {
 	public And(Exp left, Exp right) {
 		super(left, right);
 	}
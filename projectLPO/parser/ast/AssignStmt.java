@@ -2,7 +2,7 @@ package projectLPO.parser.ast;
 
 import projectLPO.visitors.Visitor;
 
-public class AssignStmt extends AbstractAssignStmt {
+public final class AssignStmt extends AbstractAssignStmt {
 
 	public AssignStmt(VarIdent ident, Exp exp) {
 		super(ident, exp);
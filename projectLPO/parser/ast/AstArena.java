@@ -0,0 +1,557 @@
+package projectLPO.parser.ast;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+import projectLPO.visitors.Visitor;
+
+/*
+ * alternative storage of a whole program where nodes are kept in contiguous
+ * primitive arrays in pre-order: an opcode and one int field per node; since
+ * the first child of a node is always the next node, the field holds the index
+ * of the second child, a literal payload, an identifier or an offset in
+ * extras, where statement lists and nodes with more children keep their child
+ * indexes; identifiers are stored once in idents
+ *
+ * visitors run over the arena through small handles created while visiting;
+ * the blocks of if and for statements are created once and then kept, so that
+ * a loop body is the same Block at each iteration, and the handles reached from
+ * a loop body keep the handles of their children, so that iterations allocate
+ * no handles; the handles of the code outside loops, which usually runs
+ * once, are not kept, hence the arena stays the main long-lived data structure
+ */
+public class AstArena {
+
+	// opcodes of the nodes
+	private static final byte PROG = 0, STMT_LIST = 1, BLOCK = 2, ASSIGN = 3, VAR = 4, PRINT = 5, IF = 6, FOR = 7,
+			ADD = 8, MUL = 9, EQ = 10, LESS = 11, AND = 12, PAIR = 13, SIGN = 14, NOT = 15, FST = 16, SND = 17,
+			SEASON_NUM = 18, SEASON_OF = 19, INT = 20, BOOL = 21, SEASON = 22, IDENT = 23;
+
+	private byte[] ops = new byte[1024]; // opcodes
+	private int[] fields = new int[1024]; // one field per node, the first child is not stored
+	private int size; // number of nodes
+	private int[] extras = new int[256]; // child indexes which do not fit in fields
+	private int extrasSize;
+	private final List<VarIdent> idents = new ArrayList<>(); // identifiers indexed by the fields of the nodes
+	private int blockCount; // number of BLOCK nodes, whose fields are their indexes in blocks
+	private Block[] blocks; // Blocks created so far, null until the first one is needed
+
+	private AstArena() {
+	}
+
+	/*
+	 * stores prog in a new arena, returns the handle of the stored program; prog is
+	 * not referenced by the arena
+	 */
+	public static Prog store(Prog prog) {
+		var arena = new AstArena();
+		prog.accept(arena.new Builder());
+		arena.trim();
+		return arena.new ProgHandle();
+	}
+
+	private void trim() {
+		ops = Arrays.copyOf(ops, size);
+		fields = Arrays.copyOf(fields, size);
+		extras = Arrays.copyOf(extras, extrasSize);
+	}
+
+	/*
+	 * builds the arena in pre-order, returns the index of the visited node; the
+	 * children are visited before their indexes are stored, since the columns may
+	 * be reallocated meanwhile
+	 */
+	private class Builder implements Visitor<Integer> {
+
+		private final Map<VarIdent, Integer> identIndexes = new HashMap<>(); // indexes in idents
+
+		private int newNode(byte op) {
+			if (size == ops.length) {
+				ops = Arrays.copyOf(ops, 2 * size);
+				fields = Arrays.copyOf(fields, 2 * size);
+			}
+			ops[size] = op;
+			return size++;
+		}
+
+		private int newExtras(int length) {
+			if (extrasSize + length > extras.length)
+				extras = Arrays.copyOf(extras, Math.max(2 * extras.length, extrasSize + length));
+			var offset = extrasSize;
+			extrasSize += length;
+			return offset;
+		}
+
+		private int identIndex(VarIdent ident) {
+			var index = identIndexes.get(ident);
+			if (index == null) {
+				index = idents.size();
+				idents.add(ident);
+				identIndexes.put(ident, index);
+			}
+			return index;
+		}
+
+		private Integer binary(byte op, Exp left, Exp right) {
+			var node = newNode(op);
+			left.accept(this);
+			var rightNode = right.accept(this);
+			fields[node] = rightNode;
+			return node;
+		}
+
+		private Integer unary(byte op, Exp exp) {
+			var node = newNode(op);
+			exp.accept(this);
+			return node;
+		}
+
+		private Integer leaf(byte op, int payload) {
+			var node = newNode(op);
+			fields[node] = payload;
+			return node;
+		}
+
+		@Override
+		public Integer visitProg(StmtSeq stmtSeq) {
+			var node = newNode(PROG);
+			stmtSeq.accept(this);
+			return node;
+		}
+
+		// the size of the list is followed by the indexes of the statements
+		@Override
+		public Integer visitStmtList(List<Stmt> stmts) {
+			var node = newNode(STMT_LIST);
+			var offset = newExtras(stmts.size() + 1);
+			fields[node] = offset;
+			extras[offset] = stmts.size();
+			for (var i = 0; i < stmts.size(); i++) {
+				var child = stmts.get(i).accept(this);
+				extras[offset + 1 + i] = child;
+			}
+			return node;
+		}
+
+		@Override
+		public Integer visitBlock(StmtSeq stmtSeq) {
+			var node = newNode(BLOCK);
+			fields[node] = blockCount++;
+			stmtSeq.accept(this);
+			return node;
+		}
+
+		@Override
+		public Integer visitAssignStmt(VarIdent ident, Exp exp) {
+			var node = newNode(ASSIGN);
+			fields[node] = identIndex(ident);
+			exp.accept(this);
+			return node;
+		}
+
+		@Override
+		public Integer visitVarStmt(VarIdent ident, Exp exp) {
+			var node = newNode(VAR);
+			fields[node] = identIndex(ident);
+			exp.accept(this);
+			return node;
+		}
+
+		@Override
+		public Integer visitPrintStmt(Exp exp) {
+			return unary(PRINT, exp);
+		}
+
+		@Override
+		public Integer visitIfStmt(Exp exp, Block thenBlock, Block elseBlock) {
+			var node = newNode(IF);
+			var offset = newExtras(2);
+			fields[node] = offset;
+			exp.accept(this);
+			var thenNode = thenBlock.accept(this);
+			int elseNode = elseBlock == null ? -1 : elseBlock.accept(this);
+			extras[offset] = thenNode;
+			extras[offset + 1] = elseNode;
+			return node;
+		}
+
+		// the identifier is followed by the index of the block
+		@Override
+		public Integer visitForStmt(VarIdent ident, Exp exp, Block block) {
+			var node = newNode(FOR);
+			var offset = newExtras(2);
+			fields[node] = offset;
+			extras[offset] = identIndex(ident);
+			exp.accept(this);
+			var blockNode = block.accept(this);
+			extras[offset + 1] = blockNode;
+			return node;
+		}
+
+		@Override
+		public Integer visitAdd(Exp left, Exp right) {
+			return binary(ADD, left, right);
+		}
+
+		@Override
+		public Integer visitMul(Exp left, Exp right) {
+			return binary(MUL, left, right);
+		}
+
+		@Override
+		public Integer visitEq(Exp left, Exp right) {
+			return binary(EQ, left, right);
+		}
+
+		@Override
+		public Integer visitLess(Exp left, Exp right) {
+			return binary(LESS, left, right);
+		}
+
+		@Override
+		public Integer visitAnd(Exp left, Exp right) {
+			return binary(AND, left, right);
+		}
+
+		@Override
+		public Integer visitPairLit(Exp left, Exp right) {
+			return binary(PAIR, left, right);
+		}
+
+		@Override
+		public Integer visitSign(Exp exp) {
+			return unary(SIGN, exp);
+		}
+
+		@Override
+		public Integer visitNot(Exp exp) {
+			return unary(NOT, exp);
+		}
+
+		@Override
+		public Integer visitFst(Exp exp) {
+			return unary(FST, exp);
+		}
+
+		@Override
+		public Integer visitSnd(Exp exp) {
+			return unary(SND, exp);
+		}
+
+		@Override
+		public Integer visitSeasonNum(Exp exp) {
+			return unary(SEASON_NUM, exp);
+		}
+
+		@Override
+		public Integer visitSeasonOf(Exp exp) {
+			return unary(SEASON_OF, exp);
+		}
+
+		@Override
+		public Integer visitIntLiteral(int value) {
+			return leaf(INT, value);
+		}
+
+		@Override
+		public Integer visitBoolLiteral(boolean value) {
+			return leaf(BOOL, value ? 1 : 0);
+		}
+
+		@Override
+		public Integer visitSeasonLiteral(int value) {
+			return leaf(SEASON, value);
+		}
+
+		@Override
+		public Integer visitVarIdent(VarIdent id) {
+			return leaf(IDENT, identIndex(id));
+		}
+
+	}
+
+	// handles of the nodes
+
+	private Exp exp(int node, boolean keeps) { // identifiers are their own handles
+		return ops[node] == IDENT ? idents.get(fields[node]) : new Handle(node, keeps);
+	}
+
+	/*
+	 * handles of the children of node, kept in owner, the handle of node, if it
+	 * keeps them; owner may be null; the results are not cast to interfaces,
+	 * which are slow to test when a class implements several of them
+	 */
+
+	// the first child is the next node
+	private Exp first(int node, Handle owner) {
+		if (owner == null || !owner.keeps)
+			return exp(node + 1, false);
+		var first = owner.first;
+		if (first == null)
+			owner.first = first = exp(node + 1, true);
+		return first;
+	}
+
+	// the index of the second child is the field of node
+	private Exp second(int node, Handle owner) {
+		if (owner == null || !owner.keeps)
+			return exp(fields[node], false);
+		var second = owner.second;
+		if (second == null)
+			owner.second = second = exp(fields[node], true);
+		return second;
+	}
+
+	// the sequence of a PROG or BLOCK node, which is never an identifier
+	private Handle seq(int node, Handle owner) {
+		if (owner == null || !owner.keeps)
+			return new Handle(node + 1, false);
+		if (owner.first == null)
+			owner.first = new Handle(node + 1, true);
+		return (Handle) owner.first;
+	}
+
+	private StmtListView stmts(int node, Handle owner) {
+		if (owner == null || !owner.keeps)
+			return new StmtListView(fields[node], false);
+		if (owner.stmts == null)
+			owner.stmts = new StmtListView(fields[node], true);
+		return owner.stmts;
+	}
+
+	// the block is created on the first call, keeps tells whether it keeps the handles
+	private Block block(int node, boolean keeps) {
+		if (blocks == null)
+			blocks = new Block[blockCount];
+		var index = fields[node];
+		var block = blocks[index];
+		if (block == null)
+			blocks[index] = block = new Block(new Handle(node + 1, keeps));
+		return block;
+	}
+
+	// calls the visitor method corresponding to the node, owner is its handle or null
+	private <T> T accept(int node, Handle owner, Visitor<T> visitor) {
+		switch (ops[node]) {
+		case PROG:
+			return visitor.visitProg(seq(node, owner));
+		case STMT_LIST:
+			return visitor.visitStmtList(stmts(node, owner));
+		case BLOCK:
+			return visitor.visitBlock(seq(node, owner));
+		case ASSIGN:
+			return visitor.visitAssignStmt(idents.get(fields[node]), first(node, owner));
+		case VAR:
+			return visitor.visitVarStmt(idents.get(fields[node]), first(node, owner));
+		case PRINT:
+			return visitor.visitPrintStmt(first(node, owner));
+		case IF:
+			var keeps = owner != null && owner.keeps;
+			var elseNode = extras[fields[node] + 1];
+			return visitor.visitIfStmt(first(node, owner), block(extras[fields[node]], keeps),
+					elseNode < 0 ? null : block(elseNode, keeps));
+		case FOR: // loop bodies always keep their handles
+			return visitor.visitForStmt(idents.get(extras[fields[node]]), first(node, owner),
+					block(extras[fields[node] + 1], true));
+		case ADD:
+			return visitor.visitAdd(first(node, owner), second(node, owner));
+		case MUL:
+			return visitor.visitMul(first(node, owner), second(node, owner));
+		case EQ:
+			return visitor.visitEq(first(node, owner), second(node, owner));
+		case LESS:
+			return visitor.visitLess(first(node, owner), second(node, owner));
+		case AND:
+			return visitor.visitAnd(first(node, owner), second(node, owner));
+		case PAIR:
+			return visitor.visitPairLit(first(node, owner), second(node, owner));
+		case SIGN:
+			return visitor.visitSign(first(node, owner));
+		case NOT:
+			return visitor.visitNot(first(node, owner));
+		case FST:
+			return visitor.visitFst(first(node, owner));
+		case SND:
+			return visitor.visitSnd(first(node, owner));
+		case SEASON_NUM:
+			return visitor.visitSeasonNum(first(node, owner));
+		case SEASON_OF:
+			return visitor.visitSeasonOf(first(node, owner));
+		case INT:
+			return visitor.visitIntLiteral(fields[node]);
+		case BOOL:
+			return visitor.visitBoolLiteral(fields[node] != 0);
+		case SEASON:
+			return visitor.visitSeasonLiteral(fields[node]);
+		default:
+			throw new AssertionError("Unexpected opcode " + ops[node]);
+		}
+	}
+
+	// rebuilds the object representation of the node, used by toString()
+	private AST toAst(int node) {
+		switch (ops[node]) {
+		case PROG:
+			return new ProgAST((StmtSeq) toAst(node + 1));
+		case STMT_LIST:
+			var offset = fields[node];
+			var stmts = new ArrayList<Stmt>(extras[offset]);
+			for (var i = 0; i < extras[offset]; i++)
+				stmts.add((Stmt) toAst(extras[offset + 1 + i]));
+			return new StmtList(stmts);
+		case BLOCK:
+			return new Block((StmtSeq) toAst(node + 1));
+		case ASSIGN:
+			return new AssignStmt(idents.get(fields[node]), (Exp) toAst(node + 1));
+		case VAR:
+			return new VarStmt(idents.get(fields[node]), (Exp) toAst(node + 1));
+		case PRINT:
+			return new PrintStmt((Exp) toAst(node + 1));
+		case IF:
+			var elseNode = extras[fields[node] + 1];
+			return new IfStmt((Exp) toAst(node + 1), (Block) toAst(extras[fields[node]]),
+					elseNode < 0 ? null : (Block) toAst(elseNode));
+		case FOR:
+			return new ForStmt(idents.get(extras[fields[node]]), (Exp) toAst(node + 1),
+					(Block) toAst(extras[fields[node] + 1]));
+		case ADD:
+			return new Add((Exp) toAst(node + 1), (Exp) toAst(fields[node]));
+		case MUL:
+			return new Mul((Exp) toAst(node + 1), (Exp) toAst(fields[node]));
+		case EQ:
+			return new Eq((Exp) toAst(node + 1), (Exp) toAst(fields[node]));
+		case LESS:
+			return new Less((Exp) toAst(node + 1), (Exp) toAst(fields[node]));
+		case AND:
+			return new And((Exp) toAst(node + 1), (Exp) toAst(fields[node]));
+		case PAIR:
+			return new PairLit((Exp) toAst(node + 1), (Exp) toAst(fields[node]));
+		case SIGN:
+			return new Sign((Exp) toAst(node + 1));
+		case NOT:
+			return new Not((Exp) toAst(node + 1));
+		case FST:
+			return new Fst((Exp) toAst(node + 1));
+		case SND:
+			return new Snd((Exp) toAst(node + 1));
+		case SEASON_NUM:
+			return new SeasonNum((Exp) toAst(node + 1));
+		case SEASON_OF:
+			return new SeasonOf((Exp) toAst(node + 1));
+		case INT:
+			return new IntLiteral(fields[node]);
+		case BOOL:
+			return new BoolLiteral(fields[node] != 0);
+		case SEASON:
+			return new SeasonLiteral(fields[node]);
+		default: // IDENT
+			return idents.get(fields[node]);
+		}
+	}
+
+	// handle of a statement, statement sequence or expression in the arena
+	public final class Handle implements Stmt, StmtSeq, Exp {
+		private final int node;
+		private final boolean keeps; // whether the handles of the children are kept
+		private Exp first, second; // handles of the children, if kept
+		private StmtListView stmts; // statements of a STMT_LIST node, if kept
+
+		Handle(int node, boolean keeps) {
+			this.node = node;
+			this.keeps = keeps;
+		}
+
+		@Override
+		public <T> T accept(Visitor<T> visitor) {
+			return AstArena.this.accept(node, this, visitor);
+		}
+
+		// copy of the node out of the arena, for code which does not use visitors
+		public AST materialize() {
+			return toAst(node);
+		}
+
+		@Override
+		public String toString() {
+			return toAst(node).toString();
+		}
+	}
+
+	// handle of the program, which is the root of the arena
+	public final class ProgHandle implements Prog {
+		private ProgHandle() {
+		}
+
+		@Override
+		public <T> T accept(Visitor<T> visitor) {
+			return AstArena.this.accept(0, null, visitor);
+		}
+
+		// copy of the program out of the arena, for code which does not use visitors
+		public Prog materialize() {
+			return (Prog) toAst(0);
+		}
+
+		@Override
+		public String toString() {
+			return toAst(0).toString();
+		}
+	}
+
+	// statements of a list, whose size and indexes are in extras starting from offset
+	private class StmtListView extends AbstractList<Stmt> implements RandomAccess {
+		private final int offset, size;
+		private final Handle[] handles; // handles of the statements if they are kept, otherwise null
+
+		StmtListView(int offset, boolean keeps) {
+			this.offset = offset;
+			size = extras[offset];
+			handles = keeps ? new Handle[size] : null;
+		}
+
+		@Override
+		public Stmt get(int index) {
+			if (index < 0 || index >= size)
+				throw new IndexOutOfBoundsException(index);
+			if (handles == null)
+				return new Handle(extras[offset + 1 + index], false);
+			var handle = handles[index];
+			if (handle == null)
+				handles[index] = handle = new Handle(extras[offset + 1 + index], true);
+			return handle;
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		// simpler than the iterator of AbstractList, so that the JIT can avoid allocating it
+		@Override
+		public Iterator<Stmt> iterator() {
+			return new Iterator<>() {
+				private int next;
+
+				@Override
+				public boolean hasNext() {
+					return next < size;
+				}
+
+				@Override
+				public Stmt next() {
+					if (next >= size)
+						throw new NoSuchElementException();
+					return get(next++);
+				}
+			};
+		}
+	}
+
+}
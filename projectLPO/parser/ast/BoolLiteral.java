@@ -2,7 +2,7 @@ package projectLPO.parser.ast;
 
 import projectLPO.visitors.Visitor;
 
-public class BoolLiteral extends PrimLiteral<Boolean> {
+public final class BoolLiteral extends PrimLiteral<Boolean> {
 
 	public BoolLiteral(boolean b) {
 		super(b);
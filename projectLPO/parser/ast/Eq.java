@@ -2,7 +2,7 @@ package projectLPO.parser.ast;
 
 import projectLPO.visitors.Visitor;
 
-public class Eq extends BinaryOp {
+public final class Eq extends BinaryOp {
 	public Eq(Exp left, Exp right) {
 		super(left, right);
 	}
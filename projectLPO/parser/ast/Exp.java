@@ -1,4 +1,4 @@
 package projectLPO.parser.ast;
 
-public interface Exp extends AST {
+public sealed interface Exp extends AST permits BinaryOp, UnaryOp, PrimLiteral, VarIdent, AstArena.Handle {
 }
@@ -2,7 +2,7 @@ package projectLPO.parser.ast;
 
 import projectLPO.visitors.Visitor;
 
-public class ForStmt implements Stmt{
+public final class ForStmt implements Stmt{
     private final VarIdent exp1;
     private final Exp exp2;
     private final Block block;
@@ -12,6 +12,18 @@ public class ForStmt implements Stmt{
         this.block = block;
     }
 
+    public VarIdent getIdent() {
+        return exp1;
+    }
+
+    public Exp getExp() {
+        return exp2;
+    }
+
+    public Block getBlock() {
+        return block;
+    }
+
     @Override
     public <T> T accept(Visitor<T> visitor) {
         return visitor.visitForStmt(exp1, exp2, block);
@@ -2,7 +2,7 @@ package projectLPO.parser.ast;
 
 import projectLPO.visitors.Visitor;
 
-public class Fst extends UnaryOp {
+public final class Fst extends UnaryOp {
 
 	public Fst(Exp exp) {
 		super(exp);
@@ -4,7 +4,7 @@ import static java.util.Objects.requireNonNull;
 
 import projectLPO.visitors.Visitor;
 
-public class IfStmt implements Stmt {
+public final class IfStmt implements Stmt {
 	private final Exp exp;
 	private final Block thenBlock;
 	private final Block elseBlock;
@@ -19,6 +19,19 @@ public class IfStmt implements Stmt {
 		this(exp, thenBlock, null);
 	}
 
+	public Exp getExp() {
+		return exp;
+	}
+
+	public Block getThenBlock() {
+		return thenBlock;
+	}
+
+	// null if missing
+	public Block getElseBlock() {
+		return elseBlock;
+	}
+
 	@Override
 	public String toString() {
 		return getClass().getSimpleName() + "(" + exp + "," + thenBlock + "," + elseBlock + ")";
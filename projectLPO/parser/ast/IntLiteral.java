@@ -2,7 +2,7 @@ package projectLPO.parser.ast;
 
 import projectLPO.visitors.Visitor;
 
-public class IntLiteral extends PrimLiteral<Integer> {
+public final class IntLiteral extends PrimLiteral<Integer> {
 
 	public IntLiteral(int n) {
 		super(n);
@@ -2,7 +2,7 @@ package projectLPO.parser.ast;
 
 import projectLPO.visitors.Visitor;
 
-public class Less extends BinaryOp{
+public final class Less extends BinaryOp{
     public Less(Exp left, Exp right) {
         super(left, right);
     }
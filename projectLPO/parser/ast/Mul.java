@@ -2,7 +2,7 @@ package projectLPO.parser.ast;
 
 import projectLPO.visitors.Visitor;
 
-public class Mul extends BinaryOp {
+public final class Mul extends BinaryOp {
 	public Mul(Exp left, Exp right) {
 		super(left, right);
 	}
@@ -2,7 +2,7 @@ package projectLPO.parser.ast;
 
 import projectLPO.visitors.Visitor;
 
-public class Not extends UnaryOp {
+public final class Not extends UnaryOp {
 
 	public Not(Exp exp) {
 		super(exp);
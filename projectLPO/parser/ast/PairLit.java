@@ -2,7 +2,7 @@ package projectLPO.parser.ast;
 
 import projectLPO.visitors.Visitor;
 
-public class PairLit extends BinaryOp {
+public final class PairLit extends BinaryOp {
 	public PairLit(Exp left, Exp right) {
 		super(left, right);
 	}
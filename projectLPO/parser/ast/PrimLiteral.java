@@ -1,6 +1,6 @@
 package projectLPO.parser.ast;
 
-public abstract class PrimLiteral<T> implements Exp {
+public abstract sealed class PrimLiteral<T> implements Exp permits IntLiteral, BoolLiteral, SeasonLiteral {
 
 	protected final T value;
 
@@ -8,6 +8,10 @@ public abstract class PrimLiteral<T> implements Exp {
 		this.value = n;
 	}
 
+	public T getValue() {
+		return value;
+	}
+
 	@Override
 	public String toString() {
 		return getClass().getSimpleName() + "(" + value + ")";
@@ -4,13 +4,17 @@ import static java.util.Objects.requireNonNull;
 
 import projectLPO.visitors.Visitor;
 
-public class PrintStmt implements Stmt {
+public final class PrintStmt implements Stmt {
 	private final Exp exp;
 
 	public PrintStmt(Exp exp) {
 		this.exp = requireNonNull(exp);
 	}
 
+	public Exp getExp() {
+		return exp;
+	}
+
 	@Override
 	public String toString() {
 		return getClass().getSimpleName() + "(" + exp + ")";
@@ -1,4 +1,4 @@
 package projectLPO.parser.ast;
 
-public interface Prog extends AST {
+public sealed interface Prog extends AST permits ProgAST, AstArena.ProgHandle {
 }
@@ -4,13 +4,17 @@ import static java.util.Objects.requireNonNull;
 
 import projectLPO.visitors.Visitor;
 
-public class ProgAST implements Prog {
+public final class ProgAST implements Prog {
 	private final StmtSeq stmtSeq;
 
 	public ProgAST(StmtSeq stmtSeq) {
 		this.stmtSeq = requireNonNull(stmtSeq);
 	}
 
+	public StmtSeq getStmtSeq() {
+		return stmtSeq;
+	}
+
 	@Override
 	public String toString() {
 		return getClass().getSimpleName() + "(" + stmtSeq + ")";
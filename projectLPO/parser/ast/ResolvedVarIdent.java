@@ -0,0 +1,60 @@
+package projectLPO.parser.ast;
+
+import static java.util.Objects.requireNonNull;
+
+import projectLPO.visitors.Visitor;
+
+/*
+ * occurrence of an identifier bound by the Resolver to the slot of its
+ * declaration; all occurrences bound to the same declaration share the same
+ * object, the slot is -1 for undeclared variables and for declarations of
+ * variables already declared in the same scope; equality is identity
+ */
+public final class ResolvedVarIdent implements VarIdent {
+	// how the variable is stored, scalar kinds are only used for statically typed variables
+	public enum Kind {
+		VALUE, INT, BOOL, SEASON
+	}
+
+	private final VarIdent ident; // the canonical identifier
+	private final int slot;
+	private final Kind kind;
+
+	public ResolvedVarIdent(VarIdent ident, int slot, Kind kind) {
+		this.ident = requireNonNull(ident);
+		this.slot = slot;
+		this.kind = requireNonNull(kind);
+	}
+
+	public ResolvedVarIdent(VarIdent ident, int slot) {
+		this(ident, slot, Kind.VALUE);
+	}
+
+	@Override
+	public String getName() {
+		return ident.getName();
+	}
+
+	public VarIdent getIdent() {
+		return ident;
+	}
+
+	public int getSlot() {
+		return slot;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	@Override
+	public String toString() {
+		return ident.toString();
+	}
+
+	@Override
+	public <T> T accept(Visitor<T> visitor) {
+		return visitor.visitVarIdent(this);
+	}
+
+}
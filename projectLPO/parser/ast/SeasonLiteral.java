@@ -2,7 +2,7 @@ package projectLPO.parser.ast;
 
 import projectLPO.visitors.Visitor;
 
-public class SeasonLiteral extends PrimLiteral<Integer>{
+public final class SeasonLiteral extends PrimLiteral<Integer>{
 
     public SeasonLiteral(int n) {
         super(n);
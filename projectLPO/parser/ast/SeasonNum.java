@@ -2,7 +2,7 @@ package projectLPO.parser.ast;
 
 import projectLPO.visitors.Visitor;
 
-public class SeasonNum extends UnaryOp{
+public final class SeasonNum extends UnaryOp{
 
     public SeasonNum(Exp exp)
     {
@@ -2,7 +2,7 @@ package projectLPO.parser.ast;
 
 import projectLPO.visitors.Visitor;
 
-public class SeasonOf extends UnaryOp{
+public final class SeasonOf extends UnaryOp{
 
     public SeasonOf(Exp exp)
     {
@@ -2,7 +2,7 @@ package projectLPO.parser.ast;
 
 import projectLPO.visitors.Visitor;
 
-public class Sign extends UnaryOp {
+public final class Sign extends UnaryOp {
 
 	public Sign(Exp exp) {
 		super(exp);
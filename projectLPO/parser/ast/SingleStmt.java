@@ -1,15 +0,0 @@
-package projectLPO.parser.ast;
-
-import projectLPO.visitors.Visitor;
-
-public class SingleStmt extends Single<Stmt> implements StmtSeq {
-
-	public SingleStmt(Stmt single) {
-		super(single);
-	}
-
-	@Override
-	public <T> T accept(Visitor<T> visitor) {
-		return visitor.visitSingleStmt(single);
-	}
-}
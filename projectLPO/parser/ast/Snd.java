@@ -2,7 +2,7 @@ package projectLPO.parser.ast;
 
 import projectLPO.visitors.Visitor;
 
-public class Snd extends UnaryOp {
+public final class Snd extends UnaryOp {
 
 	public Snd(Exp exp) {
 		super(exp);
@@ -1,4 +1,5 @@
 package projectLPO.parser.ast;
 
-public interface Stmt extends AST {
+public sealed interface Stmt extends AST
+		permits AbstractAssignStmt, PrintStmt, IfStmt, ForStmt, Block, AstArena.Handle {
 }
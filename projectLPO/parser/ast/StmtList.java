@@ -0,0 +1,44 @@
+package projectLPO.parser.ast;
+
+import java.util.List;
+
+import projectLPO.visitors.Visitor;
+
+/*
+ * non empty sequence of statements stored in a flat array, visitors can process
+ * it with a loop instead of one nested call per statement
+ */
+public final class StmtList implements StmtSeq {
+	private final List<Stmt> stmts;
+
+	public StmtList(List<Stmt> stmts) {
+		if (stmts.isEmpty())
+			throw new IllegalArgumentException("Empty sequence of statements");
+		this.stmts = List.copyOf(stmts);
+	}
+
+	public List<Stmt> getStmts() {
+		return stmts;
+	}
+
+	/*
+	 * same output as the right-nested chain MoreStmt(s1,MoreStmt(s2,SingleStmt(s3)))
+	 * used by previous versions, built without recursion
+	 */
+	@Override
+	public String toString() {
+		var sb = new StringBuilder();
+		var last = stmts.size() - 1;
+		for (var i = 0; i < last; i++)
+			sb.append("MoreStmt(").append(stmts.get(i)).append(',');
+		sb.append("SingleStmt(").append(stmts.get(last)).append(')');
+		for (var i = 0; i < last; i++)
+			sb.append(')');
+		return sb.toString();
+	}
+
+	@Override
+	public <T> T accept(Visitor<T> visitor) {
+		return visitor.visitStmtList(stmts);
+	}
+}
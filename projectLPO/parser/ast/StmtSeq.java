@@ -1,4 +1,4 @@
 package projectLPO.parser.ast;
 
-public interface StmtSeq extends AST {
+public sealed interface StmtSeq extends AST permits StmtList, AstArena.Handle {
 }
@@ -0,0 +1,77 @@
+package projectLPO.parser.ast;
+
+import java.util.Arrays;
+
+/*
+ * table of the identifiers of programs: each distinct name is associated with a
+ * single VarIdentAST object having a dense integer id, hence identifiers can be
+ * compared by identity and hashed by id; the table is not thread-safe
+ */
+public class SymbolTable {
+
+	private static final int INITIAL_CAPACITY = 256; // must be a power of 2
+
+	private VarIdentAST[] slots = new VarIdentAST[INITIAL_CAPACITY]; // open addressing with linear probing
+	private VarIdentAST[] idents = new VarIdentAST[INITIAL_CAPACITY / 2]; // identifiers indexed by id
+	private int size; // number of identifiers
+
+	// same function as String.hashCode(), which is cached by the names in the table
+	private static int hash(CharSequence name) {
+		var hash = 0;
+		for (var i = 0; i < name.length(); i++)
+			hash = 31 * hash + name.charAt(i);
+		return hash;
+	}
+
+	/*
+	 * returns the identifier with the given name, which is created only if not
+	 * already in the table; name is turned into a string only in that case
+	 */
+	public VarIdentAST intern(CharSequence name) {
+		var hash = hash(name);
+		var mask = slots.length - 1;
+		for (var i = hash & mask;; i = (i + 1) & mask) {
+			var ident = slots[i];
+			if (ident == null)
+				return add(i, name.toString());
+			var identName = ident.getName();
+			if (identName.hashCode() == hash && identName.contentEquals(name))
+				return ident;
+		}
+	}
+
+	private VarIdentAST add(int slot, String name) {
+		var ident = new VarIdentAST(name, size);
+		slots[slot] = ident;
+		if (size == idents.length)
+			idents = Arrays.copyOf(idents, 2 * size);
+		idents[size++] = ident;
+		if (2 * size > slots.length)
+			rehash();
+		return ident;
+	}
+
+	private void rehash() {
+		slots = new VarIdentAST[2 * slots.length];
+		var mask = slots.length - 1;
+		for (var id = 0; id < size; id++) {
+			var i = idents[id].getName().hashCode() & mask;
+			while (slots[i] != null)
+				i = (i + 1) & mask;
+			slots[i] = idents[id];
+		}
+	}
+
+	// returns the identifier with the given id
+	public VarIdentAST get(int id) {
+		if (id < 0 || id >= size)
+			throw new IndexOutOfBoundsException(id);
+		return idents[id];
+	}
+
+	// number of identifiers in the table, ids range from 0 to size() - 1
+	public int size() {
+		return size;
+	}
+
+}
@@ -2,13 +2,17 @@ package projectLPO.parser.ast;
 
 import static java.util.Objects.requireNonNull;
 
-public abstract class UnaryOp implements Exp {
+public abstract sealed class UnaryOp implements Exp permits Sign, Not, Fst, Snd, SeasonNum, SeasonOf {
 	protected final Exp exp;
 
 	protected UnaryOp(Exp exp) {
 		this.exp = requireNonNull(exp);
 	}
 
+	public Exp getExp() {
+		return exp;
+	}
+
 	@Override
 	public String toString() {
 		return getClass().getSimpleName() + "(" + exp + ")";
@@ -1,5 +1,5 @@
 package projectLPO.parser.ast;
 
-public interface VarIdent extends Exp {
+public sealed interface VarIdent extends Exp permits VarIdentAST, ResolvedVarIdent {
 	String getName();
 }
@@ -4,11 +4,17 @@ import static java.util.Objects.requireNonNull;
 
 import projectLPO.visitors.Visitor;
 
-public class VarIdentAST implements VarIdent {
+/*
+ * identifiers are created only by SymbolTable, which hands out a single object
+ * per name: equality is identity and the hash code is the id
+ */
+public final class VarIdentAST implements VarIdent {
 	private final String name;
+	private final int id; // dense id in the symbol table
 
-	public VarIdentAST(String name) {
+	VarIdentAST(String name, int id) {
 		this.name = requireNonNull(name);
+		this.id = id;
 	}
 
 	@Override
@@ -16,18 +22,18 @@ public class VarIdentAST implements VarIdent {
 		return name;
 	}
 
+	public int getId() {
+		return id;
+	}
+
 	@Override
 	public final boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!(obj instanceof VarIdentAST))
-			return false;
-		return name.equals(((VarIdentAST) obj).name);
+		return this == obj;
 	}
 
 	@Override
 	public int hashCode() {
-		return name.hashCode();
+		return id;
 	}
 
 	@Override
@@ -2,7 +2,7 @@ package projectLPO.parser.ast;
 
 import projectLPO.visitors.Visitor;
 
-public class VarStmt extends AbstractAssignStmt {
+public final class VarStmt extends AbstractAssignStmt {
 
 	public VarStmt(VarIdent ident, Exp exp) {
 		super(ident, exp);
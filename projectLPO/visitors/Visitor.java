@@ -1,5 +1,7 @@
 package projectLPO.visitors;
 
+import java.util.List;
+
 import projectLPO.parser.ast.Block;
 import projectLPO.parser.ast.Exp;
 import projectLPO.parser.ast.Stmt;
@@ -15,8 +17,6 @@ public interface Visitor<T> {
 
 	T visitEq(Exp left, Exp right);
 
-	T visitMoreStmt(Stmt first, StmtSeq rest);
-
 	T visitMul(Exp left, Exp right);
 
 	T visitPrintStmt(Exp exp);
@@ -27,7 +27,7 @@ public interface Visitor<T> {
 
 	T visitVarIdent(VarIdent id); // the only corner case ...
 
-	T visitSingleStmt(Stmt stmt);
+	T visitStmtList(List<Stmt> stmts);
 
 	T visitVarStmt(VarIdent ident, Exp exp);
 
@@ -0,0 +1,7 @@
+package projectLPO.visitors.closures;
+
+// compiled expression whose static type is one of booleans
+@FunctionalInterface
+public interface BoolExpr {
+	boolean eval(Frame frame);
+}
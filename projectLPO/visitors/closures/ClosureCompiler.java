@@ -0,0 +1,400 @@
+package projectLPO.visitors.closures;
+
+import static java.util.Objects.requireNonNull;
+import static projectLPO.visitors.typechecking.PrimtType.*;
+
+import java.io.PrintWriter;
+import java.util.List;
+
+import projectLPO.environments.SlotEnvironment;
+import projectLPO.parser.Season;
+import projectLPO.parser.ast.AST;
+import projectLPO.parser.ast.Block;
+import projectLPO.parser.ast.Exp;
+import projectLPO.parser.ast.Prog;
+import projectLPO.parser.ast.ResolvedVarIdent;
+import projectLPO.parser.ast.Stmt;
+import projectLPO.parser.ast.StmtSeq;
+import projectLPO.parser.ast.VarIdent;
+import projectLPO.visitors.Visitor;
+import projectLPO.visitors.evaluation.BoolValue;
+import projectLPO.visitors.evaluation.IntValue;
+import projectLPO.visitors.evaluation.PairValue;
+import projectLPO.visitors.evaluation.SeasonValue;
+import projectLPO.visitors.typechecking.ProdType;
+import projectLPO.visitors.typechecking.Type;
+
+/*
+ * translates a program into a tree of closures which run on a Frame; programs
+ * must be type-checked and resolved by the Resolver, hence the slots and the
+ * static types of variables are known at translation time, and only pairs are
+ * boxed; the visitor returns the static type of expressions, and the closure of
+ * the most recently translated statement or expression is left in code, as an
+ * IntExpr for integers and seasons, a BoolExpr for booleans, a PairExpr for
+ * pairs and a StmtExec for statements; the types of the variables persist
+ * across calls, so that programs can be compiled one statement at a time
+ */
+public class ClosureCompiler implements Visitor<Type> {
+
+	private final SlotEnvironment<Type> types = new SlotEnvironment<>();
+	private final PrintWriter printWriter; // output stream used to print values
+	private Object code; // closure of the most recently translated node
+	private int frameSize; // number of slots used by the compiled programs
+
+	public ClosureCompiler(PrintWriter printWriter) {
+		this.printWriter = requireNonNull(printWriter);
+	}
+
+	public StmtExec compile(Prog prog) {
+		prog.accept(this);
+		return (StmtExec) code;
+	}
+
+	public int getFrameSize() {
+		return frameSize;
+	}
+
+	// declares a variable of the enclosing code of a loop compiled by compileLoop()
+	void declare(VarIdent ident, Type type) {
+		types.dec(ident, type);
+		frameSize = Math.max(frameSize, ((ResolvedVarIdent) ident).getSlot() + 1);
+	}
+
+	// code of the loop for ident to exp with block, resumed at the given value of its hidden counter
+	@FunctionalInterface
+	interface LoopCode {
+		void resume(Frame frame, int counter);
+	}
+
+	LoopCode compileLoop(VarIdent ident, Exp exp, Block block) {
+		int slot = ((ResolvedVarIdent) ident).getSlot();
+		var e = intExpr(exp);
+		var body = stmt(block);
+		return (frame, counter) -> loop(frame, slot, e, body, counter);
+	}
+
+	// iterations of a loop from the value i of its hidden counter on
+	private static void loop(Frame frame, int slot, IntExpr e, StmtExec body, int i) {
+		for (; i <= e.eval(frame); i++) {
+			frame.ints[slot] = i;
+			body.exec(frame);
+		}
+		frame.ints[slot] = i;
+	}
+
+	private StmtExec stmt(AST node) {
+		node.accept(this);
+		return (StmtExec) code;
+	}
+
+	private IntExpr intExpr(Exp exp) {
+		exp.accept(this);
+		return (IntExpr) code;
+	}
+
+	private BoolExpr boolExpr(Exp exp) {
+		exp.accept(this);
+		return (BoolExpr) code;
+	}
+
+
+	// code as a boxed value of type type, for the components of pairs
+	private static ValueExpr box(Type type, Object code) {
+		if (type == INT) {
+			var e = (IntExpr) code;
+			return frame -> IntValue.of(e.eval(frame));
+		}
+		if (type == BOOL) {
+			var e = (BoolExpr) code;
+			return frame -> BoolValue.of(e.eval(frame));
+		}
+		if (type == SEASON) {
+			var e = (IntExpr) code;
+			return frame -> SeasonValue.of(e.eval(frame));
+		}
+		var e = (PairExpr) code;
+		return e::eval;
+	}
+
+	// leaves in code the unboxed component of type type selected by select
+	private Type component(Type type, ValueExpr select) {
+		if (type == INT)
+			code = (IntExpr) frame -> select.eval(frame).toInt();
+		else if (type == BOOL)
+			code = (BoolExpr) frame -> select.eval(frame).toBool();
+		else if (type == SEASON)
+			code = (IntExpr) frame -> select.eval(frame).toSeason().ordinal();
+		else
+			code = (PairExpr) frame -> select.eval(frame).toProd();
+		return type;
+	}
+
+	// code storing the value computed by code, of type type, in the slot of ident
+	private static StmtExec store(VarIdent ident, Type type, Object code) {
+		int slot = ((ResolvedVarIdent) ident).getSlot();
+		if (type == BOOL) {
+			var e = (BoolExpr) code;
+			return frame -> frame.ints[slot] = e.eval(frame) ? 1 : 0;
+		}
+		if (type instanceof ProdType) {
+			var e = (PairExpr) code;
+			return frame -> frame.pairs[slot] = e.eval(frame);
+		}
+		var e = (IntExpr) code;
+		return frame -> frame.ints[slot] = e.eval(frame);
+	}
+
+	private Type ret(Type type, Object code) {
+		this.code = code;
+		return type;
+	}
+
+	// programs
+
+	@Override
+	public Type visitProg(StmtSeq stmtSeq) {
+		code = stmt(stmtSeq);
+		return null;
+	}
+
+	// statements
+
+	@Override
+	public Type visitAssignStmt(VarIdent ident, Exp exp) {
+		exp.accept(this);
+		code = store(ident, types.lookup(ident), code);
+		return null;
+	}
+
+	@Override
+	public Type visitPrintStmt(Exp exp) {
+		var type = exp.accept(this);
+		var pw = printWriter;
+		if (type == INT) {
+			var e = (IntExpr) code;
+			code = (StmtExec) frame -> pw.println(e.eval(frame));
+		} else if (type == BOOL) {
+			var e = (BoolExpr) code;
+			code = (StmtExec) frame -> pw.println(e.eval(frame));
+		} else if (type == SEASON) {
+			var e = (IntExpr) code;
+			code = (StmtExec) frame -> pw.println(Season.of(e.eval(frame)));
+		} else {
+			var e = (PairExpr) code;
+			code = (StmtExec) frame -> pw.println(e.eval(frame));
+		}
+		return null;
+	}
+
+	@Override
+	public Type visitVarStmt(VarIdent ident, Exp exp) {
+		var type = exp.accept(this);
+		code = store(ident, type, code);
+		declare(ident, type);
+		return null;
+	}
+
+	@Override
+	public Type visitForStmt(VarIdent ident, Exp exp, Block block) {
+		int slot = ((ResolvedVarIdent) ident).getSlot();
+		var e = intExpr(exp);
+		var body = stmt(block);
+		code = (StmtExec) frame -> {
+			int start = frame.ints[slot];
+			int end = e.eval(frame);
+			loop(frame, slot, e, body, start);
+		};
+		return null;
+	}
+
+	@Override
+	public Type visitIfStmt(Exp exp, Block thenBlock, Block elseBlock) {
+		var cond = boolExpr(exp);
+		var thenCode = stmt(thenBlock);
+		if (elseBlock == null) {
+			code = (StmtExec) frame -> {
+				if (cond.eval(frame))
+					thenCode.exec(frame);
+			};
+			return null;
+		}
+		var elseCode = stmt(elseBlock);
+		code = (StmtExec) frame -> {
+			if (cond.eval(frame))
+				thenCode.exec(frame);
+			else
+				elseCode.exec(frame);
+		};
+		return null;
+	}
+
+	@Override
+	public Type visitBlock(StmtSeq stmtSeq) {
+		code = stmt(stmtSeq);
+		return null;
+	}
+
+	// sequences of statements
+
+	@Override
+	public Type visitStmtList(List<Stmt> stmts) {
+		var codes = new StmtExec[stmts.size()];
+		for (var i = 0; i < codes.length; i++)
+			codes[i] = stmt(stmts.get(i));
+		if (codes.length == 1)
+			code = codes[0];
+		else
+			code = (StmtExec) frame -> {
+				for (var stmt : codes)
+					stmt.exec(frame);
+			};
+		return null;
+	}
+
+	// expressions; operands are evaluated from left to right
+
+	@Override
+	public Type visitAdd(Exp left, Exp right) {
+		var l = intExpr(left);
+		var r = intExpr(right);
+		return ret(INT, (IntExpr) frame -> l.eval(frame) + r.eval(frame));
+	}
+
+	@Override
+	public Type visitIntLiteral(int value) {
+		return ret(INT, (IntExpr) frame -> value);
+	}
+
+	@Override
+	public Type visitMul(Exp left, Exp right) {
+		var l = intExpr(left);
+		var r = intExpr(right);
+		return ret(INT, (IntExpr) frame -> l.eval(frame) * r.eval(frame));
+	}
+
+	@Override
+	public Type visitSign(Exp exp) {
+		var e = intExpr(exp);
+		return ret(INT, (IntExpr) frame -> -e.eval(frame));
+	}
+
+	@Override
+	public Type visitSeasonNum(Exp exp) {
+		intExpr(exp); // seasons are already represented by their numbers
+		return INT;
+	}
+
+	@Override
+	public Type visitSeasonOf(Exp exp) {
+		var e = intExpr(exp);
+		return ret(SEASON, (IntExpr) frame -> {
+			int val = e.eval(frame);
+			if (!(val >= 0 && val <= 3))
+				throw new ArrayIndexOutOfBoundsException("Index -1 out of bounds for length 4");
+			return val;
+		});
+	}
+
+	@Override
+	public Type visitVarIdent(VarIdent id) {
+		var type = types.lookup(id);
+		int slot = ((ResolvedVarIdent) id).getSlot();
+		if (type == BOOL)
+			return ret(type, (BoolExpr) frame -> frame.ints[slot] != 0);
+		if (type instanceof ProdType)
+			return ret(type, (PairExpr) frame -> frame.pairs[slot]);
+		return ret(type, (IntExpr) frame -> frame.ints[slot]);
+	}
+
+	@Override
+	public Type visitNot(Exp exp) {
+		var e = boolExpr(exp);
+		return ret(BOOL, (BoolExpr) frame -> !e.eval(frame));
+	}
+
+	@Override
+	public Type visitAnd(Exp left, Exp right) {
+		var l = boolExpr(left);
+		var r = boolExpr(right);
+		return ret(BOOL, (BoolExpr) frame -> l.eval(frame) && r.eval(frame));
+	}
+
+	@Override
+	public Type visitBoolLiteral(boolean value) {
+		return ret(BOOL, value ? (BoolExpr) frame -> true : (BoolExpr) frame -> false);
+	}
+
+	@Override
+	public Type visitEq(Exp left, Exp right) {
+		var type = left.accept(this);
+		var l = code;
+		right.accept(this);
+		var r = code;
+		if (type == BOOL) {
+			var lb = (BoolExpr) l;
+			var rb = (BoolExpr) r;
+			return ret(BOOL, (BoolExpr) frame -> lb.eval(frame) == rb.eval(frame));
+		}
+		if (type instanceof ProdType) {
+			var lp = (PairExpr) l;
+			var rp = (PairExpr) r;
+			return ret(BOOL, (BoolExpr) frame -> lp.eval(frame).equals(rp.eval(frame)));
+		}
+		var li = (IntExpr) l;
+		var ri = (IntExpr) r;
+		return ret(BOOL, (BoolExpr) frame -> li.eval(frame) == ri.eval(frame));
+	}
+
+	@Override
+	public Type visitLess(Exp left, Exp right) {
+		var type = left.accept(this);
+		var l = code;
+		right.accept(this);
+		var r = code;
+		if (type == BOOL) { // false is less than true
+			var lb = (BoolExpr) l;
+			var rb = (BoolExpr) r;
+			return ret(BOOL, (BoolExpr) frame -> {
+				var lv = lb.eval(frame);
+				return rb.eval(frame) && !lv;
+			});
+		}
+		if (type instanceof ProdType) {
+			var lp = (PairExpr) l;
+			var rp = (PairExpr) r;
+			return ret(BOOL, (BoolExpr) frame -> lp.eval(frame).less(rp.eval(frame)));
+		}
+		var li = (IntExpr) l; // seasons are compared by number
+		var ri = (IntExpr) r;
+		return ret(BOOL, (BoolExpr) frame -> li.eval(frame) < ri.eval(frame));
+	}
+
+	@Override
+	public Type visitPairLit(Exp left, Exp right) {
+		var lType = left.accept(this);
+		var l = box(lType, code);
+		var rType = right.accept(this);
+		var r = box(rType, code);
+		return ret(new ProdType(lType, rType), (PairExpr) frame -> new PairValue(l.eval(frame), r.eval(frame)));
+	}
+
+	@Override
+	public Type visitFst(Exp exp) {
+		var type = (ProdType) exp.accept(this);
+		var e = (PairExpr) code;
+		return component(type.getFstType(), frame -> e.eval(frame).getFstVal());
+	}
+
+	@Override
+	public Type visitSnd(Exp exp) {
+		var type = (ProdType) exp.accept(this);
+		var e = (PairExpr) code;
+		return component(type.getSndType(), frame -> e.eval(frame).getSndVal());
+	}
+
+	@Override
+	public Type visitSeasonLiteral(int value) {
+		return ret(SEASON, (IntExpr) frame -> value);
+	}
+
+}
@@ -0,0 +1,35 @@
+package projectLPO.visitors.closures;
+
+import java.io.PrintWriter;
+
+import projectLPO.parser.ast.Prog;
+import projectLPO.visitors.evaluation.EvaluatorException;
+
+/*
+ * alternative to Eval which compiles programs with a ClosureCompiler and runs
+ * the closures on a Frame; programs must be type-checked and resolved by the
+ * Resolver, the observable behavior is the same as for Eval; the frame persists
+ * across calls, so that programs can be run one statement at a time
+ */
+public class ClosureEval {
+
+	private final ClosureCompiler compiler;
+	private final Frame frame = new Frame();
+
+	public ClosureEval(PrintWriter printWriter) {
+		compiler = new ClosureCompiler(printWriter);
+	}
+
+	public void run(Prog prog) {
+		var code = compiler.compile(prog);
+		frame.ensureCapacity(compiler.getFrameSize());
+		try {
+			code.exec(frame);
+			// possible runtime errors
+			// IndexOutOfBoundsException: seasonof out of range
+		} catch (IndexOutOfBoundsException e) {
+			throw new EvaluatorException(e);
+		}
+	}
+
+}
@@ -0,0 +1,24 @@
+package projectLPO.visitors.closures;
+
+import java.util.Arrays;
+
+import projectLPO.visitors.evaluation.PairValue;
+
+/*
+ * variables of a compiled program, indexed by the slots of the Resolver:
+ * integers, seasons and booleans (0 or 1) are in ints, pairs in pairs
+ */
+public final class Frame {
+
+	int[] ints = new int[16];
+	PairValue[] pairs = new PairValue[16];
+
+	void ensureCapacity(int size) {
+		if (size > ints.length) {
+			var capacity = Math.max(2 * ints.length, size);
+			ints = Arrays.copyOf(ints, capacity);
+			pairs = Arrays.copyOf(pairs, capacity);
+		}
+	}
+
+}
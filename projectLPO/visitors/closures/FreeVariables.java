@@ -0,0 +1,170 @@
+package projectLPO.visitors.closures;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import projectLPO.parser.ast.Block;
+import projectLPO.parser.ast.Exp;
+import projectLPO.parser.ast.Stmt;
+import projectLPO.parser.ast.StmtSeq;
+import projectLPO.parser.ast.VarIdent;
+import projectLPO.visitors.Visitor;
+
+/*
+ * collects the variables of resolved code which are not declared in it; since
+ * the occurrences of a resolved variable share the object of its declaration,
+ * these are the variables used by the code minus the declared ones
+ */
+class FreeVariables implements Visitor<Void> {
+
+	private final Set<VarIdent> used = new LinkedHashSet<>();
+	private final Set<VarIdent> declared = new LinkedHashSet<>();
+
+	// free variables of the loop for ident to exp with block
+	static Set<VarIdent> ofLoop(VarIdent ident, Exp exp, Block block) {
+		var visitor = new FreeVariables();
+		visitor.visitForStmt(ident, exp, block);
+		visitor.used.removeAll(visitor.declared);
+		return visitor.used;
+	}
+
+	private Void visit(Exp left, Exp right) {
+		left.accept(this);
+		return right.accept(this);
+	}
+
+	@Override
+	public Void visitProg(StmtSeq stmtSeq) {
+		return stmtSeq.accept(this);
+	}
+
+	// statements
+
+	@Override
+	public Void visitAssignStmt(VarIdent ident, Exp exp) {
+		used.add(ident);
+		return exp.accept(this);
+	}
+
+	@Override
+	public Void visitPrintStmt(Exp exp) {
+		return exp.accept(this);
+	}
+
+	@Override
+	public Void visitVarStmt(VarIdent ident, Exp exp) {
+		declared.add(ident);
+		return exp.accept(this);
+	}
+
+	@Override
+	public Void visitForStmt(VarIdent ident, Exp exp, Block block) {
+		used.add(ident);
+		exp.accept(this);
+		return block.accept(this);
+	}
+
+	@Override
+	public Void visitIfStmt(Exp exp, Block thenBlock, Block elseBlock) {
+		exp.accept(this);
+		thenBlock.accept(this);
+		return elseBlock == null ? null : elseBlock.accept(this);
+	}
+
+	@Override
+	public Void visitBlock(StmtSeq stmtSeq) {
+		return stmtSeq.accept(this);
+	}
+
+	@Override
+	public Void visitStmtList(List<Stmt> stmts) {
+		for (var stmt : stmts)
+			stmt.accept(this);
+		return null;
+	}
+
+	// expressions
+
+	@Override
+	public Void visitVarIdent(VarIdent id) {
+		used.add(id);
+		return null;
+	}
+
+	@Override
+	public Void visitAdd(Exp left, Exp right) {
+		return visit(left, right);
+	}
+
+	@Override
+	public Void visitIntLiteral(int value) {
+		return null;
+	}
+
+	@Override
+	public Void visitEq(Exp left, Exp right) {
+		return visit(left, right);
+	}
+
+	@Override
+	public Void visitMul(Exp left, Exp right) {
+		return visit(left, right);
+	}
+
+	@Override
+	public Void visitSign(Exp exp) {
+		return exp.accept(this);
+	}
+
+	@Override
+	public Void visitNot(Exp exp) {
+		return exp.accept(this);
+	}
+
+	@Override
+	public Void visitAnd(Exp left, Exp right) {
+		return visit(left, right);
+	}
+
+	@Override
+	public Void visitBoolLiteral(boolean value) {
+		return null;
+	}
+
+	@Override
+	public Void visitPairLit(Exp left, Exp right) {
+		return visit(left, right);
+	}
+
+	@Override
+	public Void visitFst(Exp exp) {
+		return exp.accept(this);
+	}
+
+	@Override
+	public Void visitSnd(Exp exp) {
+		return exp.accept(this);
+	}
+
+	@Override
+	public Void visitSeasonLiteral(int value) {
+		return null;
+	}
+
+	@Override
+	public Void visitSeasonNum(Exp exp) {
+		return exp.accept(this);
+	}
+
+	@Override
+	public Void visitSeasonOf(Exp exp) {
+		return exp.accept(this);
+	}
+
+	@Override
+	public Void visitLess(Exp left, Exp right) {
+		return visit(left, right);
+	}
+
+}
@@ -0,0 +1,7 @@
+package projectLPO.visitors.closures;
+
+// compiled expression whose static type is one of integers and seasons, by number
+@FunctionalInterface
+public interface IntExpr {
+	int eval(Frame frame);
+}
@@ -0,0 +1,9 @@
+package projectLPO.visitors.closures;
+
+import projectLPO.visitors.evaluation.PairValue;
+
+// compiled expression whose static type is one of pairs
+@FunctionalInterface
+public interface PairExpr {
+	PairValue eval(Frame frame);
+}
@@ -0,0 +1,7 @@
+package projectLPO.visitors.closures;
+
+// compiled statement
+@FunctionalInterface
+public interface StmtExec {
+	void exec(Frame frame);
+}
@@ -0,0 +1,116 @@
+package projectLPO.visitors.closures;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+
+import projectLPO.environments.SlotEnvironment;
+import projectLPO.parser.ast.Block;
+import projectLPO.parser.ast.Exp;
+import projectLPO.parser.ast.ResolvedVarIdent;
+import projectLPO.parser.ast.VarIdent;
+import projectLPO.visitors.evaluation.BoolValue;
+import projectLPO.visitors.evaluation.Eval;
+import projectLPO.visitors.evaluation.IntValue;
+import projectLPO.visitors.evaluation.LoopCompiler;
+import projectLPO.visitors.evaluation.PairValue;
+import projectLPO.visitors.evaluation.SeasonValue;
+import projectLPO.visitors.evaluation.Value;
+import projectLPO.visitors.typechecking.PrimtType;
+import projectLPO.visitors.typechecking.ProdType;
+import projectLPO.visitors.typechecking.Type;
+
+/*
+ * compiles the hot loops of a well typed program evaluated by Eval into
+ * closures; the types of the variables of the enclosing code are given by
+ * their kinds and, for pairs, by their current values; each run of a compiled
+ * loop copies these variables from the environment of Eval into a Frame and
+ * back when the loop exits; if log is not null, each compiled loop is reported
+ * with the time elapsed since the creation of this object
+ */
+public class TieredLoops implements LoopCompiler {
+
+	private final PrintWriter printWriter; // output stream used to print values
+	private final PrintStream log; // null if compiled loops are not reported
+	private final long startTime = System.nanoTime();
+	private int compiled; // number of compiled loops
+
+	public TieredLoops(PrintWriter printWriter, PrintStream log) {
+		this.printWriter = requireNonNull(printWriter);
+		this.log = log;
+	}
+
+	public int getCompiled() {
+		return compiled;
+	}
+
+	// static type of a value of a well typed program, null for lazy pairs
+	private static Type typeOf(Value value) {
+		if (value instanceof IntValue)
+			return PrimtType.INT;
+		if (value instanceof BoolValue)
+			return PrimtType.BOOL;
+		if (value instanceof SeasonValue)
+			return PrimtType.SEASON;
+		if (value.getClass() != PairValue.class)
+			return null;
+		var pair = (PairValue) value;
+		var fstType = typeOf(pair.getFstVal());
+		var sndType = typeOf(pair.getSndVal());
+		return fstType == null || sndType == null ? null : new ProdType(fstType, sndType);
+	}
+
+	private static Type typeOf(ResolvedVarIdent ident, SlotEnvironment<Value> env) {
+		switch (ident.getKind()) {
+		case INT:
+			return PrimtType.INT;
+		case BOOL:
+			return PrimtType.BOOL;
+		case SEASON:
+			return PrimtType.SEASON;
+		default:
+			return typeOf(env.lookup(ident));
+		}
+	}
+
+	@Override
+	public CompiledLoop compile(VarIdent ident, Exp exp, Block block, SlotEnvironment<Value> env) {
+		var free = FreeVariables.ofLoop(ident, exp, block).toArray(new ResolvedVarIdent[0]);
+		var compiler = new ClosureCompiler(printWriter);
+		var pairs = new boolean[free.length];
+		for (var i = 0; i < free.length; i++) {
+			var type = typeOf(free[i], env);
+			if (type == null)
+				return null;
+			pairs[i] = type instanceof ProdType;
+			compiler.declare(free[i], type);
+		}
+		var code = compiler.compileLoop(ident, exp, block);
+		var frameSize = compiler.getFrameSize();
+		compiled++;
+		if (log != null)
+			log.printf("tiered: compiled loop #%d for %s to %s after %d iterations, at %d ms%n", compiled,
+					ident.getName(), exp, Eval.HOT_LOOP_ITERATIONS, (System.nanoTime() - startTime) / 1_000_000);
+		return (current, counter) -> {
+			var frame = new Frame();
+			frame.ensureCapacity(frameSize);
+			for (var i = 0; i < free.length; i++) {
+				var slot = free[i].getSlot();
+				if (pairs[i])
+					frame.pairs[slot] = (PairValue) current.lookup(free[i]);
+				else
+					frame.ints[slot] = current.lookupScalar(free[i]);
+			}
+			code.resume(frame, counter);
+			for (var i = 0; i < free.length; i++) {
+				var slot = free[i].getSlot();
+				if (pairs[i])
+					current.update(free[i], frame.pairs[slot]);
+				else
+					current.updateScalar(free[i], frame.ints[slot]);
+			}
+		};
+	}
+
+}
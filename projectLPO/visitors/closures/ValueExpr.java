@@ -0,0 +1,9 @@
+package projectLPO.visitors.closures;
+
+import projectLPO.visitors.evaluation.Value;
+
+// compiled expression whose value is boxed, used for the components of pairs
+@FunctionalInterface
+interface ValueExpr {
+	Value eval(Frame frame);
+}
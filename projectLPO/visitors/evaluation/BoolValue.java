@@ -1,11 +1,19 @@
 package projectLPO.visitors.evaluation;
 
+/* the two boolean values are canonical, hence equality is identity */
 public class BoolValue extends PrimValue<Boolean> {
 
-	public BoolValue(Boolean value) {
+	public static final BoolValue TRUE = new BoolValue(true);
+	public static final BoolValue FALSE = new BoolValue(false);
+
+	private BoolValue(Boolean value) {
 		super(value);
 	}
 
+	public static BoolValue of(boolean value) {
+		return value ? TRUE : FALSE;
+	}
+
 	@Override
 	public boolean less(Value object) {
 		if (this == object)
@@ -17,11 +25,7 @@ public class BoolValue extends PrimValue<Boolean> {
 
 		@Override
 	public final boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!(obj instanceof BoolValue))
-			return false;
-		return value.equals(((BoolValue) obj).value);
+		return this == obj;
 	}
 
 	@Override
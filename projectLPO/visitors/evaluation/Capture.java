@@ -0,0 +1,171 @@
+package projectLPO.visitors.evaluation;
+
+import java.util.List;
+
+import projectLPO.environments.SlotEnvironment;
+import projectLPO.parser.ast.Block;
+import projectLPO.parser.ast.Exp;
+import projectLPO.parser.ast.Stmt;
+import projectLPO.parser.ast.StmtSeq;
+import projectLPO.parser.ast.VarIdent;
+import projectLPO.visitors.Visitor;
+
+/*
+ * copies the variables read by an expression from an environment to the
+ * environment of a thunk of LazyPairValue, so that the thunk does not keep alive
+ * the other values of the environment; with a null target environment the
+ * variables are only inspected, see depth(); only expressions are visited
+ */
+class Capture implements Visitor<Void> {
+
+	private SlotEnvironment<Value> from;
+	private final SlotEnvironment<Value> to;
+	private int depth; // largest depth of the values of the variables inspected so far
+
+	Capture(SlotEnvironment<Value> from, SlotEnvironment<Value> to) {
+		this.from = from;
+		this.to = to;
+	}
+
+	// largest LazyPairValue.depth() of the values in env of the variables read by exp, the target must be null
+	int depth(SlotEnvironment<Value> env, Exp exp) {
+		from = env;
+		depth = 0;
+		exp.accept(this);
+		return depth;
+	}
+
+	private Void visit(Exp left, Exp right) {
+		left.accept(this);
+		return right.accept(this);
+	}
+
+	// statements are never visited
+
+	@Override
+	public Void visitProg(StmtSeq stmtSeq) {
+		throw new IllegalStateException();
+	}
+
+	@Override
+	public Void visitAssignStmt(VarIdent ident, Exp exp) {
+		throw new IllegalStateException();
+	}
+
+	@Override
+	public Void visitPrintStmt(Exp exp) {
+		throw new IllegalStateException();
+	}
+
+	@Override
+	public Void visitVarStmt(VarIdent ident, Exp exp) {
+		throw new IllegalStateException();
+	}
+
+	@Override
+	public Void visitForStmt(VarIdent ident, Exp exp, Block block) {
+		throw new IllegalStateException();
+	}
+
+	@Override
+	public Void visitIfStmt(Exp exp, Block thenBlock, Block elseBlock) {
+		throw new IllegalStateException();
+	}
+
+	@Override
+	public Void visitBlock(StmtSeq stmtSeq) {
+		throw new IllegalStateException();
+	}
+
+	@Override
+	public Void visitStmtList(List<Stmt> stmts) {
+		throw new IllegalStateException();
+	}
+
+	// expressions
+
+	@Override
+	public Void visitVarIdent(VarIdent id) {
+		if (to != null)
+			from.copyTo(id, to);
+		else
+			depth = Math.max(depth, LazyPairValue.depth(from.peek(id)));
+		return null;
+	}
+
+	@Override
+	public Void visitAdd(Exp left, Exp right) {
+		return visit(left, right);
+	}
+
+	@Override
+	public Void visitMul(Exp left, Exp right) {
+		return visit(left, right);
+	}
+
+	@Override
+	public Void visitEq(Exp left, Exp right) {
+		return visit(left, right);
+	}
+
+	@Override
+	public Void visitLess(Exp left, Exp right) {
+		return visit(left, right);
+	}
+
+	@Override
+	public Void visitAnd(Exp left, Exp right) {
+		return visit(left, right);
+	}
+
+	@Override
+	public Void visitPairLit(Exp left, Exp right) {
+		return visit(left, right);
+	}
+
+	@Override
+	public Void visitSign(Exp exp) {
+		return exp.accept(this);
+	}
+
+	@Override
+	public Void visitNot(Exp exp) {
+		return exp.accept(this);
+	}
+
+	@Override
+	public Void visitFst(Exp exp) {
+		return exp.accept(this);
+	}
+
+	@Override
+	public Void visitSnd(Exp exp) {
+		return exp.accept(this);
+	}
+
+	@Override
+	public Void visitSeasonNum(Exp exp) {
+		return exp.accept(this);
+	}
+
+	@Override
+	public Void visitSeasonOf(Exp exp) {
+		return exp.accept(this);
+	}
+
+	@Override
+	public Void visitIntLiteral(int value) {
+		return null;
+	}
+
+	@Override
+	public Void visitBoolLiteral(boolean value) {
+		return null;
+	}
+
+	@Override
+	public Void visitSeasonLiteral(int value) {
+		return null;
+	}
+
+}
@@ -1,12 +1,17 @@
 package projectLPO.visitors.evaluation;
 
 import java.io.PrintWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import projectLPO.environments.EnvironmentException;
-import projectLPO.environments.GenEnvironment;
-import projectLPO.parser.SeasonTypeConvertor;
+import projectLPO.environments.SlotEnvironment;
 import projectLPO.parser.ast.Block;
 import projectLPO.parser.ast.Exp;
+import projectLPO.parser.ast.PrimLiteral;
+import projectLPO.parser.ast.ResolvedVarIdent;
+import projectLPO.parser.ast.ResolvedVarIdent.Kind;
 import projectLPO.parser.ast.VarIdent;
 import projectLPO.parser.ast.Stmt;
 import projectLPO.parser.ast.StmtSeq;
@@ -14,17 +19,153 @@ import projectLPO.visitors.Visitor;
 
 import static java.util.Objects.requireNonNull;
 
+// programs must be resolved by the Resolver before evaluation
+// variables of scalar kinds are stored unboxed, and read without boxing when they are operands
 public class Eval implements Visitor<Value> {
 
-	private final GenEnvironment<Value> env = new GenEnvironment<>();
+	public static final int HOT_LOOP_ITERATIONS = 1000; // iterations after which a loop is compiled
+
+	// iterations of a loop over all its executions, and its compiled code if any
+	private static class LoopProfile {
+		int iterations;
+		LoopCompiler.CompiledLoop compiled;
+	}
+
+	private SlotEnvironment<Value> env = new SlotEnvironment<>(); // replaced while a thunk is evaluated
 	private final PrintWriter printWriter; // output stream used to print values
+	private final PairInterner interner; // null if pairs are not hash-consed
+	private final boolean lazyPairs; // whether pair components are evaluated only when needed
+	private final LoopCompiler loopCompiler; // null if loops are always interpreted
+	private final Map<Block, LoopProfile> loops = new WeakHashMap<>(); // profiles of the loops, by body
+	private final Capture inspector = new Capture(null, null); // finds the depths of the thunks of lazy pairs
 
 	public Eval() {
 		printWriter = new PrintWriter(System.out, true);
+		interner = null;
+		lazyPairs = false;
+		loopCompiler = null;
 	}
 
 	public Eval(PrintWriter printWriter) {
+		this(printWriter, null, false);
+	}
+
+	public Eval(PrintWriter printWriter, PairInterner interner, boolean lazyPairs) {
+		this(printWriter, interner, lazyPairs, null);
+	}
+
+	/*
+	 * with lazyPairs pairs are LazyPairValues, and interner is not used; with a
+	 * loopCompiler the loops are compiled after HOT_LOOP_ITERATIONS iterations,
+	 * unless lazyPairs is true
+	 */
+	public Eval(PrintWriter printWriter, PairInterner interner, boolean lazyPairs, LoopCompiler loopCompiler) {
 		this.printWriter = requireNonNull(printWriter);
+		this.interner = interner;
+		this.lazyPairs = lazyPairs;
+		this.loopCompiler = lazyPairs ? null : loopCompiler;
+	}
+
+	// evaluates exp in env, used for the thunks of LazyPairValue
+	Value evalIn(SlotEnvironment<Value> env, Exp exp) {
+		var current = this.env;
+		this.env = env;
+		try {
+			return exp.accept(this);
+		} finally {
+			this.env = current;
+		}
+	}
+
+	// literals and declared variables are evaluated without errors and in constant time
+	private static boolean isTrivial(Exp exp) {
+		return exp instanceof PrimLiteral || exp instanceof ResolvedVarIdent && ((ResolvedVarIdent) exp).getSlot() >= 0;
+	}
+
+	private Value lazyPair(Exp left, Exp right) {
+		var fst = isTrivial(left) ? left.accept(this) : null;
+		var snd = isTrivial(right) ? right.accept(this) : null;
+		var depth = 0; // of the thunks
+		if (fst == null) {
+			var thunk = inspector.depth(env, left) + 1;
+			if (thunk > LazyPairValue.MAX_DEPTH)
+				fst = component(left);
+			else
+				depth = thunk;
+		}
+		if (snd == null) {
+			var thunk = inspector.depth(env, right) + 1;
+			if (thunk > LazyPairValue.MAX_DEPTH)
+				snd = component(right);
+			else
+				depth = Math.max(depth, thunk);
+		}
+		SlotEnvironment<Value> captured = null; // shared by the thunks
+		if (fst == null || snd == null) {
+			captured = env.emptyCopy();
+			var capture = new Capture(env, captured);
+			if (fst == null)
+				left.accept(capture);
+			if (snd == null)
+				right.accept(capture);
+		}
+		return new LazyPairValue(this, captured, fst, fst == null ? left : null, snd, snd == null ? right : null, depth);
+	}
+
+	// component evaluated when its pair is built, its dynamic errors are raised when it is needed
+	private Value component(Exp exp) {
+		try {
+			return exp.accept(this);
+		} catch (EvaluatorException | EnvironmentException | IndexOutOfBoundsException e) {
+			return new LazyPairValue.Failure(e);
+		}
+	}
+
+	// scalar operands
+
+	private static Kind scalarKind(Exp exp) {
+		return exp instanceof ResolvedVarIdent ? ((ResolvedVarIdent) exp).getKind() : Kind.VALUE;
+	}
+
+	private int intOf(Exp exp) {
+		if (scalarKind(exp) == Kind.INT)
+			return env.lookupScalar((VarIdent) exp);
+		return exp.accept(this).toInt();
+	}
+
+	private boolean boolOf(Exp exp) {
+		if (scalarKind(exp) == Kind.BOOL)
+			return env.lookupScalar((VarIdent) exp) != 0;
+		return exp.accept(this).toBool();
+	}
+
+	private int seasonOf(Exp exp) {
+		if (scalarKind(exp) == Kind.SEASON)
+			return env.lookupScalar((VarIdent) exp);
+		return exp.accept(this).toSeason().ordinal();
+	}
+
+	// value of exp stored in a primitive slot of the given scalar kind
+	private int scalarOf(Kind kind, Exp exp) {
+		switch (kind) {
+		case INT:
+			return intOf(exp);
+		case BOOL:
+			return boolOf(exp) ? 1 : 0;
+		default:
+			return seasonOf(exp);
+		}
+	}
+
+	private static Value box(Kind kind, int scalar) {
+		switch (kind) {
+		case INT:
+			return IntValue.of(scalar);
+		case BOOL:
+			return BoolValue.of(scalar != 0);
+		default:
+			return SeasonValue.of(scalar);
+		}
 	}
 
 	// dynamic semantics for programs; no value returned by the visitor
@@ -48,7 +189,11 @@ public class Eval implements Visitor<Value> {
 
 	@Override
 	public Value visitAssignStmt(VarIdent ident, Exp exp) {
-		env.update(ident, exp.accept(this));
+		var kind = scalarKind(ident);
+		if (kind != Kind.VALUE)
+			env.updateScalar(ident, scalarOf(kind, exp));
+		else
+			env.update(ident, exp.accept(this));
 		return null;
 	}
 
@@ -60,27 +205,48 @@ public class Eval implements Visitor<Value> {
 
 	@Override
 	public Value visitVarStmt(VarIdent ident, Exp exp) {
-		//var v = exp.accept(this);
-		env.dec(ident, exp.accept(this));
+		var kind = scalarKind(ident);
+		if (kind != Kind.VALUE)
+			env.decScalar(ident, scalarOf(kind, exp));
+		else
+			env.dec(ident, exp.accept(this));
 		return null;
 	}
 
 	@Override
 	public Value visitForStmt(VarIdent ident, Exp exp, Block block) {
-		int start = env.lookup(ident).toInt();
-		int end = exp.accept(this).toInt();
+		var counter = scalarKind(ident) == Kind.INT; // the loop variable is stored unboxed
+		int start = intOf(ident);
+		int end = intOf(exp);
+		var profile = loopCompiler == null ? null : loops.computeIfAbsent(block, b -> new LoopProfile());
+		if (profile != null && profile.compiled != null) {
+			profile.compiled.resume(env, start);
+			return null;
+		}
 		int i = start;
-		for (i = start; i <= exp.accept(this).toInt(); i++){
-			env.update(ident, new IntValue(i));
+		for (i = start; i <= intOf(exp); i++){
+			if (counter)
+				env.updateScalar(ident, i);
+			else
+				env.update(ident, IntValue.of(i));
 			block.accept(this);
+			// on-stack replacement: the compiled loop goes on with the next iteration
+			if (profile != null && ++profile.iterations == HOT_LOOP_ITERATIONS
+					&& (profile.compiled = loopCompiler.compile(ident, exp, block, env)) != null) {
+				profile.compiled.resume(env, i + 1);
+				return null;
+			}
 		}
-		env.update(ident, new IntValue(i));
+		if (counter)
+			env.updateScalar(ident, i);
+		else
+			env.update(ident, IntValue.of(i));
 		return null;
 	}
 
 	@Override
 	public Value visitIfStmt(Exp exp, Block thenBlock, Block elseBlock) {
-		if (exp.accept(this).toBool())
+		if (boolOf(exp))
 			thenBlock.accept(this);
 		else if (elseBlock != null)
 			elseBlock.accept(this);
@@ -99,15 +265,9 @@ public class Eval implements Visitor<Value> {
 	// no value returned by the visitor
 
 	@Override
-	public Value visitSingleStmt(Stmt stmt) {
-		stmt.accept(this);
-		return null;
-	}
-
-	@Override
-	public Value visitMoreStmt(Stmt first, StmtSeq rest) {
-		first.accept(this);
-		rest.accept(this);
+	public Value visitStmtList(List<Stmt> stmts) {
+		for (var stmt : stmts)
+			stmt.accept(this);
 		return null;
 	}
 
@@ -115,70 +275,87 @@ public class Eval implements Visitor<Value> {
 
 	@Override
 	public Value visitAdd(Exp left, Exp right) {
-		return new IntValue(left.accept(this).toInt() + right.accept(this).toInt());
+		return IntValue.of(intOf(left) + intOf(right));
 	}
 
 	@Override
 	public Value visitIntLiteral(int value) {
-		return new IntValue(value);
+		return IntValue.of(value);
 	}
 
 	@Override
 	public Value visitMul(Exp left, Exp right) {
-		return new IntValue(left.accept(this).toInt() * right.accept(this).toInt());
+		return IntValue.of(intOf(left) * intOf(right));
 	}
 
 	@Override
 	public Value visitSign(Exp exp) {
-		return new IntValue(-exp.accept(this).toInt());
+		return IntValue.of(-intOf(exp));
 	}
 
 	@Override
 	public Value visitSeasonNum(Exp exp) {
-		return new IntValue(SeasonTypeConvertor.toInt(exp.accept(this).toSeason()));
+		return IntValue.of(seasonOf(exp));
 	} //преобразует в целое число
 
 	@Override
 	public Value visitSeasonOf(Exp exp) {
-		int val = exp.accept(this).toInt();
+		int val = intOf(exp);
 		if(!(val >= 0 && val <= 3)) throw new  ArrayIndexOutOfBoundsException("Index -1 out of bounds for length 4");
-		return new SeasonValue(val);
+		return SeasonValue.of(val);
 
 	}
 
 	@Override
 	public Value visitVarIdent(VarIdent id) {
+		var kind = scalarKind(id);
+		if (kind != Kind.VALUE)
+			return box(kind, env.lookupScalar(id));
 		return env.lookup(id);
 	}
 
 	@Override
 	public Value visitNot(Exp exp) {
-		return new BoolValue(!exp.accept(this).toBool());
+		return BoolValue.of(!boolOf(exp));
 	}
 
 	@Override
 	public Value visitAnd(Exp left, Exp right) {
-		return new BoolValue(left.accept(this).toBool() && right.accept(this).toBool());
+		return BoolValue.of(boolOf(left) && boolOf(right));
 	}
 
 	@Override
 	public Value visitBoolLiteral(boolean value) {
-		return new BoolValue(value);
+		return BoolValue.of(value);
 	}
 
 	@Override
 	public Value visitEq(Exp left, Exp right) {
-		return new BoolValue(left.accept(this).equals(right.accept(this)));
+		var kind = scalarKind(left) != Kind.VALUE ? scalarKind(left) : scalarKind(right);
+		if (kind != Kind.VALUE) { // operands of the same type in well typed programs
+			var l = scalarOf(kind, left);
+			return BoolValue.of(l == scalarOf(kind, right));
+		}
+		return BoolValue.of(left.accept(this).equals(right.accept(this)));
 	}
 
 	@Override
 	public Value visitLess(Exp left, Exp right) {
-		return new BoolValue(left.accept(this).less(right.accept(this)));
+		var kind = scalarKind(left) != Kind.VALUE ? scalarKind(left) : scalarKind(right);
+		if (kind != Kind.VALUE) { // false < true for booleans
+			var l = scalarOf(kind, left);
+			return BoolValue.of(l < scalarOf(kind, right));
+		}
+		return BoolValue.of(left.accept(this).less(right.accept(this)));
 	}
 
 	@Override
 	public Value visitPairLit(Exp left, Exp right) {
-		return new PairValue(left.accept(this), right.accept(this));
+		if (lazyPairs)
+			return lazyPair(left, right);
+		var fst = left.accept(this);
+		var snd = right.accept(this);
+		return interner == null ? new PairValue(fst, snd) : interner.intern(fst, snd);
 	}
 
 	@Override
@@ -193,7 +370,7 @@ public class Eval implements Visitor<Value> {
 
 	@Override
 	public Value visitSeasonLiteral(int value) {
-		return new SeasonValue(value);
+		return SeasonValue.of(value);
 	}
 
 }
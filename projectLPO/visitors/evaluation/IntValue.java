@@ -1,11 +1,26 @@
 package projectLPO.visitors.evaluation;
 
+/* small integers are canonical, other values are allocated by of() */
 public class IntValue extends PrimValue<Integer> {
 
-	public IntValue(Integer value) {
+	private static final int MIN_CACHED = -128, MAX_CACHED = 1023; // range of the canonical values
+	private static final IntValue[] cache = new IntValue[MAX_CACHED - MIN_CACHED + 1];
+
+	static {
+		for (var i = 0; i < cache.length; i++)
+			cache[i] = new IntValue(MIN_CACHED + i);
+	}
+
+	private IntValue(Integer value) {
 		super(value);
 	}
 
+	public static IntValue of(int value) {
+		if (value >= MIN_CACHED && value <= MAX_CACHED)
+			return cache[value - MIN_CACHED];
+		return new IntValue(value);
+	}
+
 	@Override
 	public boolean less(Value object) {
 		if (this == object)
@@ -0,0 +1,105 @@
+package projectLPO.visitors.evaluation;
+
+import static java.util.Objects.requireNonNull;
+
+import projectLPO.environments.SlotEnvironment;
+import projectLPO.parser.ast.Exp;
+
+/*
+ * pair built by Eval with option -lazy-pairs: a component is either a value or
+ * a thunk, made of its expression and of the values of the variables it reads,
+ * captured when the pair was built; a thunk is evaluated the first time the
+ * component is needed by fst, snd, ==, < or print, then its value replaces it;
+ * if the evaluation raises a dynamic error the thunk is kept, hence forcing it
+ * again raises the same error; a component which is never needed is never
+ * evaluated, and its errors are never raised; forcing a thunk may force the
+ * thunks of the pairs held by its variables, hence the depth of a thunk, one
+ * more than the largest depth of these pairs, is bounded by MAX_DEPTH: a
+ * component whose thunk would be deeper is evaluated when the pair is built,
+ * and its dynamic error, if any, is stored in a Failure and raised when the
+ * component is needed; in this way the chains of thunks forced by a component
+ * and kept alive by a pair are never longer than MAX_DEPTH
+ */
+class LazyPairValue extends PairValue {
+
+	private final Eval eval; // evaluates the thunks
+	private SlotEnvironment<Value> env; // variables of the thunks, null once they are all evaluated
+	private Exp fstExp, sndExp; // the unevaluated components, null once evaluated
+	private boolean hashed;
+	private int depth; // not less than the depths of the thunks of this pair and of the pairs in its components
+
+	static final int MAX_DEPTH = 8;
+
+	// value of a component whose evaluation raised error
+	static final class Failure implements Value {
+		private final RuntimeException error;
+
+		Failure(RuntimeException error) {
+			this.error = requireNonNull(error);
+		}
+
+		@Override
+		public boolean less(Value other) {
+			throw new IllegalStateException();
+		}
+	}
+
+	/*
+	 * exactly one between the value and the expression of each component is
+	 * not null; depth is the largest depth of the thunks, 0 if there are none
+	 */
+	LazyPairValue(Eval eval, SlotEnvironment<Value> env, Value fstVal, Exp fstExp, Value sndVal, Exp sndExp, int depth) {
+		this.eval = requireNonNull(eval);
+		this.env = env;
+		this.fstVal = fstVal;
+		this.fstExp = fstExp;
+		this.sndVal = sndVal;
+		this.sndExp = sndExp;
+		this.depth = Math.max(depth, Math.max(depth(fstVal), depth(sndVal)));
+	}
+
+	// 0 for values which are not lazy pairs, and for null
+	static int depth(Value value) {
+		return value instanceof LazyPairValue ? ((LazyPairValue) value).depth : 0;
+	}
+
+	@Override
+	public Value getFstVal() {
+		if (fstExp != null) {
+			fstVal = eval.evalIn(env, fstExp);
+			fstExp = null;
+			release();
+		} else if (fstVal instanceof Failure)
+			throw ((Failure) fstVal).error;
+		return fstVal;
+	}
+
+	@Override
+	public Value getSndVal() {
+		if (sndExp != null) {
+			sndVal = eval.evalIn(env, sndExp);
+			sndExp = null;
+			release();
+		} else if (sndVal instanceof Failure)
+			throw ((Failure) sndVal).error;
+		return sndVal;
+	}
+
+	private void release() {
+		if (fstExp == null && sndExp == null) {
+			env = null;
+			depth = Math.max(depth(fstVal), depth(sndVal));
+		}
+	}
+
+	// forces both components
+	@Override
+	public int hashCode() {
+		if (!hashed) {
+			hash = hash(getFstVal(), getSndVal());
+			hashed = true;
+		}
+		return hash;
+	}
+
+}
@@ -0,0 +1,24 @@
+package projectLPO.visitors.evaluation;
+
+import projectLPO.environments.SlotEnvironment;
+import projectLPO.parser.ast.Block;
+import projectLPO.parser.ast.Exp;
+import projectLPO.parser.ast.VarIdent;
+
+/*
+ * compiles the hot for loops of Eval, which then runs their remaining
+ * iterations with the compiled code; the loop is given with the environment of
+ * its first compiled iteration
+ */
+public interface LoopCompiler {
+
+	// runs a compiled loop in env from the given value of its hidden counter, until the loop exits
+	@FunctionalInterface
+	interface CompiledLoop {
+		void resume(SlotEnvironment<Value> env, int counter);
+	}
+
+	// code of the loop for ident to exp with block, null if the loop cannot be compiled
+	CompiledLoop compile(VarIdent ident, Exp exp, Block block, SlotEnvironment<Value> env);
+
+}
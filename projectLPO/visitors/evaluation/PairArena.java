@@ -0,0 +1,73 @@
+package projectLPO.visitors.evaluation;
+
+import static projectLPO.visitors.evaluation.TaggedValues.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/*
+ * off-heap store of the pairs of TaggedEval: a pair is a fixed-width record of
+ * RECORD bytes in a growable direct buffer, with the tags of its components in
+ * the two nibbles of the first byte, followed by their 32-bit payloads; a pair
+ * value is the tag PAIR with the index of its record as payload, hence pairs of
+ * pairs are records referring to other records; records are never freed one by
+ * one, the whole buffer is released with the arena when the program ends
+ */
+public final class PairArena {
+
+	private static final int RECORD = 9; // bytes per pair
+	private static final int MAX_PAIRS = Integer.MAX_VALUE / RECORD;
+
+	private ByteBuffer records = ByteBuffer.allocateDirect(RECORD << 10).order(ByteOrder.nativeOrder()); // positioned after the last record
+	private int size; // number of pairs
+
+	// allocates the pair of two tagged values, returns the tagged pair value
+	public long pair(long fst, long snd) {
+		if (size == MAX_PAIRS)
+			throw new EvaluatorException("Too many pairs");
+		if (records.remaining() < RECORD) {
+			var capacity = (int) Math.min(2L * records.capacity(), (long) MAX_PAIRS * RECORD);
+			records = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder()).put(records.flip());
+		}
+		records.put((byte) (tag(fst) | tag(snd) << 4)).putInt((int) fst).putInt((int) snd);
+		return ofPair(size++);
+	}
+
+	// first component of a pair, an EvaluatorException is thrown if pair is not a pair
+	public long fst(long pair) {
+		var offset = toHandle(pair) * RECORD;
+		return encode(records.get(offset) & 0xF, records.getInt(offset + 1));
+	}
+
+	// second component of a pair, an EvaluatorException is thrown if pair is not a pair
+	public long snd(long pair) {
+		var offset = toHandle(pair) * RECORD;
+		return encode((records.get(offset) & 0xFF) >>> 4, records.getInt(offset + 5));
+	}
+
+	// structural equality, as for PairValue
+	public boolean equals(long left, long right) {
+		if (left == right)
+			return true;
+		if (tag(left) != PAIR_TAG || tag(right) != PAIR_TAG)
+			return false;
+		return equals(fst(left), fst(right)) && equals(snd(left), snd(right));
+	}
+
+	// as in PairValue.less, the second components are compared only if the first ones are less
+	public boolean less(long left, long right) {
+		if (tag(left) != PAIR_TAG)
+			return TaggedValues.less(left, null, right, null);
+		toHandle(right);
+		if (left == right)
+			return false;
+		return less(fst(left), fst(right)) && less(snd(left), snd(right));
+	}
+
+	public String toString(long value) {
+		if (tag(value) != PAIR_TAG)
+			return TaggedValues.toString(value, null);
+		return "<<" + toString(fst(value)) + ", " + toString(snd(value)) + ">>";
+	}
+
+}
@@ -0,0 +1,85 @@
+package projectLPO.visitors.evaluation;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/*
+ * hash-consing of pairs: structurally equal pairs created by the same interner
+ * are the same object, hence equality of interned pairs is identity and equal
+ * subtrees share memory; the table is a chained hash table whose entries refer
+ * to the pairs weakly, so that it does not keep alive pairs or their components,
+ * and the entries of collected pairs are removed by the next operation; since
+ * pairs are interned bottom-up, components are compared in constant time; all
+ * operations are synchronized
+ */
+public class PairInterner {
+
+	private static final class Entry extends WeakReference<PairValue> {
+		private final int hash;
+		private Entry next;
+
+		Entry(PairValue pair, int hash, Entry next, ReferenceQueue<PairValue> queue) {
+			super(pair, queue);
+			this.hash = hash;
+			this.next = next;
+		}
+	}
+
+	private Entry[] table = new Entry[1 << 10]; // the length is a power of 2
+	private int size; // number of entries, some of whose pairs may have been collected
+	private final ReferenceQueue<PairValue> collected = new ReferenceQueue<>();
+
+	// returns the interned pair with the given components
+	public synchronized PairValue intern(Value fst, Value snd) {
+		expunge();
+		var hash = PairValue.hash(fst, snd);
+		var index = hash & table.length - 1;
+		for (var entry = table[index]; entry != null; entry = entry.next)
+			if (entry.hash == hash) {
+				var pair = entry.get();
+				if (pair != null && pair.getFstVal().equals(fst) && pair.getSndVal().equals(snd))
+					return pair;
+			}
+		var pair = new PairValue(fst, snd, true);
+		table[index] = new Entry(pair, hash, table[index], collected);
+		if (++size > table.length - (table.length >> 2))
+			resize();
+		return pair;
+	}
+
+	// number of interned pairs, some of which may have been collected
+	public synchronized int size() {
+		expunge();
+		return size;
+	}
+
+	private void resize() {
+		var newTable = new Entry[2 * table.length];
+		for (var entry : table)
+			while (entry != null) {
+				var next = entry.next;
+				var index = entry.hash & newTable.length - 1;
+				entry.next = newTable[index];
+				newTable[index] = entry;
+				entry = next;
+			}
+		table = newTable;
+	}
+
+	private void expunge() {
+		for (var ref = collected.poll(); ref != null; ref = collected.poll()) {
+			var stale = (Entry) ref;
+			var index = stale.hash & table.length - 1;
+			if (table[index] == stale)
+				table[index] = stale.next;
+			else
+				for (var entry = table[index]; entry != null; entry = entry.next)
+					if (entry.next == stale) {
+						entry.next = stale.next;
+						break;
+					}
+			size--;
+		}
+	}
+
+}
@@ -1,16 +1,41 @@
 package projectLPO.visitors.evaluation;
 
 import static java.util.Objects.requireNonNull;
-import static java.util.Objects.hash;
 
+/*
+ * the hash is computed once at construction; pairs created by a PairInterner
+ * are interned, hence two distinct interned pairs are never equal; components
+ * are accessed through getFstVal() and getSndVal(), which LazyPairValue
+ * overrides
+ */
 public class PairValue implements Value {
 
-	private final Value fstVal;
-	private final Value sndVal;
+	// not final only for LazyPairValue, which sets them when its components are evaluated
+	Value fstVal;
+	Value sndVal;
+	int hash;
+	private final boolean interned;
 
-	public PairValue(Value fstVal, Value sndVal) {
+	PairValue(Value fstVal, Value sndVal, boolean interned) {
 		this.fstVal = requireNonNull(fstVal);
 		this.sndVal = requireNonNull(sndVal);
+		hash = hash(fstVal, sndVal);
+		this.interned = interned;
+	}
+
+	public PairValue(Value fstVal, Value sndVal) {
+		this(fstVal, sndVal, false);
+	}
+
+	// for LazyPairValue, whose components may be evaluated later
+	PairValue() {
+		interned = false;
+	}
+
+	// mixes the hashes, since pairs of small integers are common keys of PairInterner
+	static int hash(Value fstVal, Value sndVal) {
+		var hash = fstVal.hashCode() * 0x9E3779B9 + sndVal.hashCode();
+		return hash ^ hash >>> 16;
 	}
 
 	public Value getFstVal() {
@@ -32,17 +57,17 @@ public class PairValue implements Value {
 			return false;
 
 		var op = object.toProd();
-		return fstVal.less(op.fstVal) && sndVal.less(op.sndVal);
+		return getFstVal().less(op.getFstVal()) && getSndVal().less(op.getSndVal());
 	}
 
 	@Override
 	public String toString() {
-		return "<<" + fstVal + ", " + sndVal + ">>";
+		return "<<" + getFstVal() + ", " + getSndVal() + ">>";
 	}
 
 	@Override
 	public int hashCode() {
-		return hash(fstVal,sndVal);
+		return hash;
 	}
 
 	@Override
@@ -52,6 +77,10 @@ public class PairValue implements Value {
 		if (!(obj instanceof PairValue))
 			return false;
 		var op = (PairValue) obj;
-		return fstVal.equals(op.fstVal) && sndVal.equals(op.sndVal);
+		if (interned && op.interned)
+			return false;
+		if (!(this instanceof LazyPairValue || op instanceof LazyPairValue) && hash != op.hash)
+			return false; // the hash of lazy pairs would force their components
+		return getFstVal().equals(op.getFstVal()) && getSndVal().equals(op.getSndVal());
 	}
 }
@@ -1,20 +1,38 @@
 package projectLPO.visitors.evaluation;
 
-import projectLPO.parser.SeasonTypeConvertor;
+import projectLPO.parser.Season;
 
-public class SeasonValue extends PrimValue<Integer>{
+/* the four season values are canonical, hence equality is identity */
+public class SeasonValue extends PrimValue<Season>{
 
-    public SeasonValue(Integer value) {
+    private static final SeasonValue[] seasons = new SeasonValue[Season.values().length]; // indexed by ordinal
+
+    static {
+        for (var season : Season.values())
+            seasons[season.ordinal()] = new SeasonValue(season);
+    }
+
+    private SeasonValue(Season value) {
         super(value);
     }
 
+    public static SeasonValue of(Season season) {
+        return seasons[season.ordinal()];
+    }
+
+    // the season with the given number, an IndexOutOfBoundsException is thrown if there is none
+    public static SeasonValue of(int num) {
+        return seasons[num];
+    }
+
     @Override
     public final boolean equals(Object obj) {
-        if (this == obj)
-            return true;
-        if (!(obj instanceof SeasonValue))
-            return false;
-        return value.equals(((SeasonValue) obj).value);
+        return this == obj;
+    }
+
+    @Override
+    public int hashCode() {
+        return value.ordinal();
     }
 
     @Override
@@ -22,21 +40,11 @@ public class SeasonValue extends PrimValue<Integer>{
         if (this == object)
             return false;
 
-        return SeasonTypeConvertor.toInt(this.toSeason()) < SeasonTypeConvertor.toInt(object.toSeason());
-    }
-
-    /*@Override
-    public int toInt() {
-        return value;
-    }*/
-
-    @Override
-    public String toSeason() {
-        return SeasonTypeConvertor.toString(value);
+        return value.compareTo(object.toSeason()) < 0;
     }
 
     @Override
-    public String toString() {
-        return toSeason();
+    public Season toSeason() {
+        return value;
     }
 }
@@ -0,0 +1,225 @@
+package projectLPO.visitors.evaluation;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.PrintWriter;
+
+import projectLPO.environments.EnvironmentException;
+import projectLPO.environments.SlotEnvironment;
+import projectLPO.parser.ast.*;
+import projectLPO.parser.ast.ResolvedVarIdent.Kind;
+
+/*
+ * alternative to Eval which dispatches on the classes of the nodes of the
+ * sealed AST with pattern matching, instead of calling accept(); the tests of
+ * each method cover the permitted classes, the most frequent first, and the
+ * handles of an AstArena are copied out of the arena; tests are on classes
+ * rather than interfaces, which are slower to test; programs must be
+ * resolved by the Resolver, the observable behavior is the same as for Eval,
+ * without hash-consing and lazy pairs; the environment persists across calls,
+ * so that programs can be run one statement at a time
+ */
+public class SwitchEval {
+
+	private final SlotEnvironment<Value> env = new SlotEnvironment<>();
+	private final PrintWriter printWriter; // output stream used to print values
+
+	public SwitchEval(PrintWriter printWriter) {
+		this.printWriter = requireNonNull(printWriter);
+	}
+
+	public void run(Prog prog) {
+		if (prog instanceof AstArena.ProgHandle handle)
+			prog = handle.materialize();
+		try {
+			execute(((ProgAST) prog).getStmtSeq());
+			// possible runtime errors
+			// EnvironmentException: undefined variable
+			// IndexOutOfBoundsException: seasonof out of range
+		} catch (EnvironmentException | IndexOutOfBoundsException e) {
+			throw new EvaluatorException(e);
+		}
+	}
+
+	// statements
+
+	private void execute(StmtSeq stmtSeq) {
+		if (stmtSeq instanceof StmtList list)
+			for (var stmt : list.getStmts())
+				execute(stmt);
+		else
+			execute((StmtSeq) ((AstArena.Handle) stmtSeq).materialize());
+	}
+
+	private void execute(Stmt stmt) {
+		if (stmt instanceof AssignStmt s)
+			assign(s.getIdent(), s.getExp());
+		else if (stmt instanceof IfStmt s) {
+			if (boolOf(s.getExp()))
+				execute(s.getThenBlock());
+			else if (s.getElseBlock() != null)
+				execute(s.getElseBlock());
+		} else if (stmt instanceof VarStmt s)
+			declare(s.getIdent(), s.getExp());
+		else if (stmt instanceof ForStmt s)
+			loop(s.getIdent(), s.getExp(), s.getBlock());
+		else if (stmt instanceof PrintStmt s)
+			printWriter.println(evaluate(s.getExp()));
+		else if (stmt instanceof Block s)
+			execute(s.getStmtSeq());
+		else
+			execute((Stmt) ((AstArena.Handle) stmt).materialize());
+	}
+
+	private void assign(VarIdent ident, Exp exp) {
+		var kind = scalarKind(ident);
+		if (kind != Kind.VALUE)
+			env.updateScalar(ident, scalarOf(kind, exp));
+		else
+			env.update(ident, evaluate(exp));
+	}
+
+	private void declare(VarIdent ident, Exp exp) {
+		var kind = scalarKind(ident);
+		if (kind != Kind.VALUE)
+			env.decScalar(ident, scalarOf(kind, exp));
+		else
+			env.dec(ident, evaluate(exp));
+	}
+
+	// as in Eval, exp is evaluated once before the loop and then before each iteration
+	private void loop(VarIdent ident, Exp exp, Block block) {
+		var counter = scalarKind(ident) == Kind.INT; // the loop variable is stored unboxed
+		int i = intOf(ident);
+		intOf(exp);
+		for (; i <= intOf(exp); i++) {
+			if (counter)
+				env.updateScalar(ident, i);
+			else
+				env.update(ident, IntValue.of(i));
+			execute(block);
+		}
+		if (counter)
+			env.updateScalar(ident, i);
+		else
+			env.update(ident, IntValue.of(i));
+	}
+
+	// expressions; operands are evaluated from left to right
+
+	private Value evaluate(Exp exp) {
+		if (exp instanceof ResolvedVarIdent id) {
+			var kind = id.getKind();
+			if (kind != Kind.VALUE)
+				return box(kind, env.lookupScalar(id));
+			return env.lookup(id);
+		}
+		if (exp instanceof IntLiteral lit)
+			return IntValue.of(lit.getValue());
+		if (exp instanceof BinaryOp op)
+			return evaluate(op);
+		if (exp instanceof UnaryOp op)
+			return evaluate(op);
+		if (exp instanceof BoolLiteral lit)
+			return BoolValue.of(lit.getValue());
+		if (exp instanceof SeasonLiteral lit)
+			return SeasonValue.of(lit.getValue());
+		if (exp instanceof VarIdentAST id)
+			return env.lookup(id); // not resolved, SlotEnvironment raises the error
+		return evaluate((Exp) ((AstArena.Handle) exp).materialize());
+	}
+
+	private Value evaluate(BinaryOp op) {
+		var left = op.getLeft();
+		var right = op.getRight();
+		if (op instanceof Add)
+			return IntValue.of(intOf(left) + intOf(right));
+		if (op instanceof Less) {
+			var kind = scalarKind(left) != Kind.VALUE ? scalarKind(left) : scalarKind(right);
+			if (kind != Kind.VALUE) { // false < true for booleans
+				var l = scalarOf(kind, left);
+				return BoolValue.of(l < scalarOf(kind, right));
+			}
+			return BoolValue.of(evaluate(left).less(evaluate(right)));
+		}
+		if (op instanceof Mul)
+			return IntValue.of(intOf(left) * intOf(right));
+		if (op instanceof Eq) {
+			var kind = scalarKind(left) != Kind.VALUE ? scalarKind(left) : scalarKind(right);
+			if (kind != Kind.VALUE) { // operands of the same type in well typed programs
+				var l = scalarOf(kind, left);
+				return BoolValue.of(l == scalarOf(kind, right));
+			}
+			return BoolValue.of(evaluate(left).equals(evaluate(right)));
+		}
+		if (op instanceof And)
+			return BoolValue.of(boolOf(left) && boolOf(right));
+		var fst = evaluate(left); // PairLit
+		return new PairValue(fst, evaluate(right));
+	}
+
+	private Value evaluate(UnaryOp op) {
+		var exp = op.getExp();
+		if (op instanceof Fst)
+			return evaluate(exp).toProd().getFstVal();
+		if (op instanceof Snd)
+			return evaluate(exp).toProd().getSndVal();
+		if (op instanceof Not)
+			return BoolValue.of(!boolOf(exp));
+		if (op instanceof Sign)
+			return IntValue.of(-intOf(exp));
+		if (op instanceof SeasonNum)
+			return IntValue.of(seasonOf(exp));
+		int val = intOf(exp); // SeasonOf
+		if (!(val >= 0 && val <= 3))
+			throw new ArrayIndexOutOfBoundsException("Index -1 out of bounds for length 4");
+		return SeasonValue.of(val);
+	}
+
+	// scalar operands, as in Eval
+
+	private static Kind scalarKind(Exp exp) {
+		return exp instanceof ResolvedVarIdent id ? id.getKind() : Kind.VALUE;
+	}
+
+	private int intOf(Exp exp) {
+		if (scalarKind(exp) == Kind.INT)
+			return env.lookupScalar((ResolvedVarIdent) exp);
+		return evaluate(exp).toInt();
+	}
+
+	private boolean boolOf(Exp exp) {
+		if (scalarKind(exp) == Kind.BOOL)
+			return env.lookupScalar((ResolvedVarIdent) exp) != 0;
+		return evaluate(exp).toBool();
+	}
+
+	private int seasonOf(Exp exp) {
+		if (scalarKind(exp) == Kind.SEASON)
+			return env.lookupScalar((ResolvedVarIdent) exp);
+		return evaluate(exp).toSeason().ordinal();
+	}
+
+	private int scalarOf(Kind kind, Exp exp) {
+		switch (kind) {
+		case INT:
+			return intOf(exp);
+		case BOOL:
+			return boolOf(exp) ? 1 : 0;
+		default:
+			return seasonOf(exp);
+		}
+	}
+
+	private static Value box(Kind kind, int scalar) {
+		switch (kind) {
+		case INT:
+			return IntValue.of(scalar);
+		case BOOL:
+			return BoolValue.of(scalar != 0);
+		default:
+			return SeasonValue.of(scalar);
+		}
+	}
+
+}
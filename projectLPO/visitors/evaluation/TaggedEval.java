@@ -0,0 +1,253 @@
+package projectLPO.visitors.evaluation;
+
+import static java.util.Objects.requireNonNull;
+import static projectLPO.visitors.evaluation.TaggedValues.*;
+
+import java.io.PrintWriter;
+import java.util.List;
+
+import projectLPO.environments.EnvironmentException;
+import projectLPO.environments.TaggedSlotEnvironment;
+import projectLPO.parser.ast.Block;
+import projectLPO.parser.ast.Exp;
+import projectLPO.parser.ast.Stmt;
+import projectLPO.parser.ast.StmtSeq;
+import projectLPO.parser.ast.VarIdent;
+import projectLPO.visitors.Visitor;
+
+/*
+ * alternative to Eval where values are encoded in tagged longs as defined by
+ * TaggedValues, hence only pairs are allocated; the visitor returns nothing, the
+ * value of an expression is left in result, with its pair reference in
+ * resultPair; the observable behavior is the same as for Eval, and programs must
+ * be resolved by the Resolver before evaluation; if a PairArena is given, pairs
+ * are stored there and resultPair is not used
+ */
+public class TaggedEval implements Visitor<Void> {
+
+	private final TaggedSlotEnvironment<TaggedPair> env = new TaggedSlotEnvironment<>();
+	private final PrintWriter printWriter; // output stream used to print values
+	private long result; // value of the most recently evaluated expression
+	private TaggedPair resultPair; // its pair reference, null if result is not a pair
+	private final PairArena pairs; // null if pairs are allocated on the heap
+
+	public TaggedEval() {
+		printWriter = new PrintWriter(System.out, true);
+		pairs = null;
+	}
+
+	public TaggedEval(PrintWriter printWriter) {
+		this(printWriter, null);
+	}
+
+	public TaggedEval(PrintWriter printWriter, PairArena pairs) {
+		this.printWriter = requireNonNull(printWriter);
+		this.pairs = pairs;
+	}
+
+	// evaluates exp, returns result
+	private long eval(Exp exp) {
+		exp.accept(this);
+		return result;
+	}
+
+	private int intOf(Exp exp) {
+		return toInt(eval(exp));
+	}
+
+	private boolean boolOf(Exp exp) {
+		return toBool(eval(exp));
+	}
+
+	private Void ret(long value) {
+		result = value;
+		resultPair = null;
+		return null;
+	}
+
+	private Void ret(long value, TaggedPair pair) {
+		result = value;
+		resultPair = refOf(value, pair);
+		return null;
+	}
+
+	// dynamic semantics for programs
+
+	@Override
+	public Void visitProg(StmtSeq stmtSeq) {
+		try {
+			stmtSeq.accept(this);
+			// possible runtime errors
+			// EnvironmentException: undefined variable
+		} catch (EnvironmentException e) {
+			throw new EvaluatorException(e);
+		} catch (IndexOutOfBoundsException e) {
+			throw new EvaluatorException(e);
+		}
+		return null;
+	}
+
+	// dynamic semantics for statements
+
+	@Override
+	public Void visitAssignStmt(VarIdent ident, Exp exp) {
+		env.update(ident, eval(exp), resultPair);
+		return null;
+	}
+
+	@Override
+	public Void visitPrintStmt(Exp exp) {
+		var value = eval(exp);
+		printWriter.println(pairs == null ? TaggedValues.toString(value, resultPair) : pairs.toString(value));
+		return null;
+	}
+
+	@Override
+	public Void visitVarStmt(VarIdent ident, Exp exp) {
+		env.dec(ident, eval(exp), resultPair);
+		return null;
+	}
+
+	@Override
+	public Void visitForStmt(VarIdent ident, Exp exp, Block block) {
+		int start = toInt(env.lookup(ident));
+		int end = intOf(exp);
+		int i = start;
+		for (i = start; i <= intOf(exp); i++) {
+			env.update(ident, ofInt(i), null);
+			block.accept(this);
+		}
+		env.update(ident, ofInt(i), null);
+		return null;
+	}
+
+	@Override
+	public Void visitIfStmt(Exp exp, Block thenBlock, Block elseBlock) {
+		if (boolOf(exp))
+			thenBlock.accept(this);
+		else if (elseBlock != null)
+			elseBlock.accept(this);
+		return null;
+	}
+
+	@Override
+	public Void visitBlock(StmtSeq stmtSeq) {
+		stmtSeq.accept(this);
+		return null;
+	}
+
+	// dynamic semantics for sequences of statements
+
+	@Override
+	public Void visitStmtList(List<Stmt> stmts) {
+		for (var stmt : stmts)
+			stmt.accept(this);
+		return null;
+	}
+
+	// dynamic semantics of expressions; operands are evaluated and converted from left to right
+
+	@Override
+	public Void visitAdd(Exp left, Exp right) {
+		var l = intOf(left);
+		return ret(ofInt(l + intOf(right)));
+	}
+
+	@Override
+	public Void visitIntLiteral(int value) {
+		return ret(ofInt(value));
+	}
+
+	@Override
+	public Void visitMul(Exp left, Exp right) {
+		var l = intOf(left);
+		return ret(ofInt(l * intOf(right)));
+	}
+
+	@Override
+	public Void visitSign(Exp exp) {
+		return ret(ofInt(-intOf(exp)));
+	}
+
+	@Override
+	public Void visitSeasonNum(Exp exp) {
+		return ret(ofInt(toSeason(eval(exp))));
+	}
+
+	@Override
+	public Void visitSeasonOf(Exp exp) {
+		int val = intOf(exp);
+		if (!(val >= 0 && val <= 3))
+			throw new ArrayIndexOutOfBoundsException("Index -1 out of bounds for length 4");
+		return ret(ofSeason(val));
+	}
+
+	@Override
+	public Void visitVarIdent(VarIdent id) {
+		var value = env.lookup(id);
+		return ret(value, env.lookupRef(id));
+	}
+
+	@Override
+	public Void visitNot(Exp exp) {
+		return ret(ofBool(!boolOf(exp)));
+	}
+
+	@Override
+	public Void visitAnd(Exp left, Exp right) {
+		return ret(ofBool(boolOf(left) && boolOf(right)));
+	}
+
+	@Override
+	public Void visitBoolLiteral(boolean value) {
+		return ret(ofBool(value));
+	}
+
+	@Override
+	public Void visitEq(Exp left, Exp right) {
+		var l = eval(left);
+		var lPair = resultPair;
+		var r = eval(right);
+		return ret(ofBool(pairs == null ? TaggedValues.equals(l, lPair, r, resultPair) : pairs.equals(l, r)));
+	}
+
+	@Override
+	public Void visitLess(Exp left, Exp right) {
+		var l = eval(left);
+		var lPair = resultPair;
+		var r = eval(right);
+		return ret(ofBool(pairs == null ? less(l, lPair, r, resultPair) : pairs.less(l, r)));
+	}
+
+	@Override
+	public Void visitPairLit(Exp left, Exp right) {
+		var l = eval(left);
+		var lPair = resultPair;
+		var r = eval(right);
+		if (pairs != null)
+			return ret(pairs.pair(l, r));
+		return ret(PAIR, new TaggedPair(l, lPair, r, resultPair));
+	}
+
+	@Override
+	public Void visitFst(Exp exp) {
+		if (pairs != null)
+			return ret(pairs.fst(eval(exp)));
+		var pair = toProd(eval(exp), resultPair);
+		return ret(pair.getFst(), pair.getFstPair());
+	}
+
+	@Override
+	public Void visitSnd(Exp exp) {
+		if (pairs != null)
+			return ret(pairs.snd(eval(exp)));
+		var pair = toProd(eval(exp), resultPair);
+		return ret(pair.getSnd(), pair.getSndPair());
+	}
+
+	@Override
+	public Void visitSeasonLiteral(int value) {
+		return ret(ofSeason(value));
+	}
+
+}
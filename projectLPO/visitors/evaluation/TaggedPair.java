@@ -0,0 +1,65 @@
+package projectLPO.visitors.evaluation;
+
+import static java.util.Objects.hash;
+import static projectLPO.visitors.evaluation.TaggedValues.refOf;
+
+/*
+ * pair of values encoded as in TaggedValues, the only values of TaggedEval
+ * allocated on the heap; the reference of a component is null if it is not a pair
+ */
+public final class TaggedPair {
+
+	private final long fst, snd;
+	private final TaggedPair fstPair, sndPair;
+
+	public TaggedPair(long fst, TaggedPair fstPair, long snd, TaggedPair sndPair) {
+		this.fst = fst;
+		this.fstPair = refOf(fst, fstPair);
+		this.snd = snd;
+		this.sndPair = refOf(snd, sndPair);
+	}
+
+	public long getFst() {
+		return fst;
+	}
+
+	public TaggedPair getFstPair() {
+		return fstPair;
+	}
+
+	public long getSnd() {
+		return snd;
+	}
+
+	public TaggedPair getSndPair() {
+		return sndPair;
+	}
+
+	// as in PairValue.less, the second components are compared only if the first ones are less
+	public boolean less(TaggedPair other) {
+		return TaggedValues.less(fst, fstPair, other.fst, other.fstPair)
+				&& TaggedValues.less(snd, sndPair, other.snd, other.sndPair);
+	}
+
+	@Override
+	public String toString() {
+		return "<<" + TaggedValues.toString(fst, fstPair) + ", " + TaggedValues.toString(snd, sndPair) + ">>";
+	}
+
+	@Override
+	public int hashCode() {
+		return hash(fst, fstPair, snd, sndPair);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof TaggedPair))
+			return false;
+		var op = (TaggedPair) obj;
+		return TaggedValues.equals(fst, fstPair, op.fst, op.fstPair)
+				&& TaggedValues.equals(snd, sndPair, op.snd, op.sndPair);
+	}
+
+}
@@ -0,0 +1,117 @@
+package projectLPO.visitors.evaluation;
+
+import projectLPO.parser.SeasonTypeConvertor;
+
+/*
+ * encoding of values in longs used by TaggedEval: the type tag is in the high 32
+ * bits and the payload in the low 32 bits; integers, booleans and seasons are
+ * entirely encoded in the long, a pair is encoded by the tag PAIR together with a
+ * TaggedPair reference kept aside, or with the handle of its record in a
+ * PairArena as payload; conversions and comparisons fail with the same
+ * exceptions as the corresponding methods of Value
+ */
+public final class TaggedValues {
+
+	public static final int INT = 1, BOOL = 2, SEASON = 3, PAIR_TAG = 4;
+	public static final long PAIR = (long) PAIR_TAG << 32;
+	public static final long TRUE = encode(BOOL, 1), FALSE = encode(BOOL, 0);
+
+	private TaggedValues() {
+	}
+
+	static long encode(int tag, int payload) {
+		return (long) tag << 32 | payload & 0xFFFFFFFFL;
+	}
+
+	public static int tag(long value) {
+		return (int) (value >>> 32);
+	}
+
+	public static long ofInt(int value) {
+		return encode(INT, value);
+	}
+
+	public static long ofBool(boolean value) {
+		return value ? TRUE : FALSE;
+	}
+
+	public static long ofSeason(int num) {
+		return encode(SEASON, num);
+	}
+
+	// pair stored in a PairArena
+	public static long ofPair(int handle) {
+		return encode(PAIR_TAG, handle);
+	}
+
+	public static int toInt(long value) {
+		if (tag(value) != INT)
+			throw new EvaluatorException("Expecting an integer");
+		return (int) value;
+	}
+
+	public static boolean toBool(long value) {
+		if (tag(value) != BOOL)
+			throw new EvaluatorException("Expecting a boolean");
+		return value == TRUE;
+	}
+
+	// number of the season
+	public static int toSeason(long value) {
+		if (tag(value) != SEASON)
+			throw new EvaluatorException("Expecting a season");
+		return (int) value;
+	}
+
+	// handle of a pair stored in a PairArena
+	public static int toHandle(long value) {
+		if (tag(value) != PAIR_TAG)
+			throw new EvaluatorException("Expecting a pair");
+		return (int) value;
+	}
+
+	public static TaggedPair toProd(long value, TaggedPair pair) {
+		toHandle(value);
+		return pair;
+	}
+
+	// the reference to keep aside for value, null if value is not a pair
+	public static TaggedPair refOf(long value, TaggedPair pair) {
+		return tag(value) == PAIR_TAG ? pair : null;
+	}
+
+	public static boolean equals(long left, TaggedPair leftPair, long right, TaggedPair rightPair) {
+		if (left != right)
+			return false;
+		return left != PAIR || leftPair.equals(rightPair);
+	}
+
+	// the type of the left operand determines the expected type of the right one, as in Value.less
+	public static boolean less(long left, TaggedPair leftPair, long right, TaggedPair rightPair) {
+		switch (tag(left)) {
+		case INT:
+			return (int) left < toInt(right);
+		case BOOL:
+			return left != right && toBool(right) && left == FALSE;
+		case SEASON:
+			return left != right && (int) left < toSeason(right);
+		default:
+			var other = toProd(right, rightPair);
+			return leftPair != other && leftPair.less(other);
+		}
+	}
+
+	public static String toString(long value, TaggedPair pair) {
+		switch (tag(value)) {
+		case INT:
+			return Integer.toString((int) value);
+		case BOOL:
+			return Boolean.toString(value == TRUE);
+		case SEASON:
+			return SeasonTypeConvertor.toString((int) value);
+		default:
+			return pair.toString();
+		}
+	}
+
+}
@@ -1,5 +1,7 @@
 package projectLPO.visitors.evaluation;
 
+import projectLPO.parser.Season;
+
 public interface Value {
 	/* default conversion methods */
 	default int toInt() {
@@ -10,7 +12,7 @@ public interface Value {
 		throw new EvaluatorException("Expecting a boolean");
 	}
 
-	default String toSeason() {
+	default Season toSeason() {
 		throw new EvaluatorException("Expecting a season");
 	}
 
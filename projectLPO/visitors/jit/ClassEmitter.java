@@ -0,0 +1,320 @@
+package projectLPO.visitors.jit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * minimal emitter of class files with public static methods; the class file
+ * version is 49, which is verified by type inference and hence needs no stack
+ * map frames; the emitter tracks the depth of the operand stack, which must be
+ * set explicitly at the labels reached only by jumps; code can be taken out as
+ * position independent chunks, since branch offsets are relative, and then
+ * appended to the methods; the code of a method must not be larger than
+ * MAX_CODE bytes, since HotSpot never compiles larger methods (HugeMethodLimit),
+ * which also keeps the 16 bit branch offsets in range
+ */
+final class ClassEmitter {
+
+	static final int MAX_CODE = 8000;
+
+	// opcodes
+	static final int ICONST_0 = 0x03;
+	static final int BIPUSH = 0x10;
+	static final int SIPUSH = 0x11;
+	static final int LDC_W = 0x13;
+	static final int ILOAD = 0x15;
+	static final int ALOAD = 0x19;
+	static final int IALOAD = 0x2e;
+	static final int AALOAD = 0x32;
+	static final int ISTORE = 0x36;
+	static final int ASTORE = 0x3a;
+	static final int IASTORE = 0x4f;
+	static final int AASTORE = 0x53;
+	static final int POP = 0x57;
+	static final int DUP = 0x59;
+	static final int IADD = 0x60;
+	static final int IMUL = 0x68;
+	static final int INEG = 0x74;
+	static final int IXOR = 0x82;
+	static final int IINC = 0x84;
+	static final int IFEQ = 0x99;
+	static final int IFNE = 0x9a;
+	static final int IF_ICMPEQ = 0x9f;
+	static final int IF_ICMPNE = 0xa0;
+	static final int IF_ICMPLT = 0xa1;
+	static final int IF_ICMPGE = 0xa2;
+	static final int IF_ICMPGT = 0xa3;
+	static final int GOTO = 0xa7;
+	static final int RETURN = 0xb1;
+	static final int INVOKEVIRTUAL = 0xb6;
+	static final int INVOKESPECIAL = 0xb7;
+	static final int INVOKESTATIC = 0xb8;
+	static final int INVOKEINTERFACE = 0xb9;
+	static final int NEW = 0xbb;
+	static final int CHECKCAST = 0xc0;
+	static final int WIDE = 0xc4;
+
+	// constant pool tags
+	private static final int UTF8 = 1;
+	private static final int INTEGER = 3;
+	private static final int CLASS = 7;
+	private static final int METHODREF = 10;
+	private static final int INTERFACE_METHODREF = 11;
+	private static final int NAME_AND_TYPE = 12;
+
+	// position in the code, bound once by place()
+	static final class Label {
+		private int pos = -1;
+		private final List<Integer> jumps = new ArrayList<>(); // positions of the jumps to the label
+	}
+
+	private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+	private final DataOutputStream poolOut = new DataOutputStream(pool);
+	private final Map<String, Integer> entries = new HashMap<>();
+	private int poolCount = 1;
+	private byte[] code = new byte[256];
+	private int size; // number of bytes used in code
+	private int stack; // current depth of the operand stack
+	private int maxStack; // over all the methods, which is safe for each of them
+	private int maxLocals;
+	private final ByteArrayOutputStream methods = new ByteArrayOutputStream(); // the methods completed so far
+	private int methodCount;
+
+	// params is the number of local slots used by the parameters of the method
+	ClassEmitter(int params) {
+		maxLocals = params;
+	}
+
+	int size() {
+		return size;
+	}
+
+	// constant pool
+
+	private int entry(String key, int tag, Object... parts) {
+		var index = entries.get(key);
+		if (index != null)
+			return index;
+		try {
+			poolOut.writeByte(tag);
+			for (var part : parts)
+				if (part instanceof String s)
+					poolOut.writeUTF(s);
+				else if (tag == INTEGER)
+					poolOut.writeInt((Integer) part);
+				else
+					poolOut.writeShort((Integer) part);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		entries.put(key, poolCount);
+		return poolCount++;
+	}
+
+	private int utf8(String s) {
+		return entry("U" + s, UTF8, s);
+	}
+
+	int classRef(String name) {
+		return entry("C" + name, CLASS, utf8(name));
+	}
+
+	private int nameAndType(String name, String desc) {
+		return entry("N" + name + ' ' + desc, NAME_AND_TYPE, utf8(name), utf8(desc));
+	}
+
+	private int memberRef(int tag, String owner, String name, String desc) {
+		return entry(tag + owner + '.' + name + desc, tag, classRef(owner), nameAndType(name, desc));
+	}
+
+	// code
+
+	private void u1(int b) {
+		if (size == code.length)
+			code = Arrays.copyOf(code, 2 * code.length);
+		code[size++] = (byte) b;
+	}
+
+	private void u2(int s) {
+		u1(s >> 8);
+		u1(s);
+	}
+
+	private void push(int delta) {
+		stack += delta;
+		maxStack = Math.max(maxStack, stack);
+	}
+
+	// sets the depth of the operand stack at a label reached only by jumps
+	void setStack(int depth) {
+		stack = depth;
+	}
+
+	int getStack() {
+		return stack;
+	}
+
+	// instruction without operands changing the stack depth by delta
+	void op(int opcode, int delta) {
+		u1(opcode);
+		push(delta);
+	}
+
+	void iconst(int value) {
+		if (value >= -1 && value <= 5)
+			u1(ICONST_0 + value);
+		else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+			u1(BIPUSH);
+			u1(value);
+		} else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+			u1(SIPUSH);
+			u2(value);
+		} else {
+			u1(LDC_W);
+			u2(entry("I" + value, INTEGER, value));
+		}
+		push(1);
+	}
+
+	// loads, stores and increments of locals
+	void local(int opcode, int index) {
+		maxLocals = Math.max(maxLocals, index + 1);
+		if (index > 255) {
+			u1(WIDE);
+			u1(opcode);
+			u2(index);
+		} else {
+			u1(opcode);
+			u1(index);
+		}
+		push(opcode == ILOAD || opcode == ALOAD ? 1 : -1);
+	}
+
+	void iinc(int index, int increment) {
+		maxLocals = Math.max(maxLocals, index + 1);
+		if (index > 255) {
+			u1(WIDE);
+			u1(IINC);
+			u2(index);
+			u2(increment);
+		} else {
+			u1(IINC);
+			u1(index);
+			u1(increment);
+		}
+	}
+
+	// instructions with a class operand: NEW and CHECKCAST
+	void type(int opcode, String owner) {
+		u1(opcode);
+		u2(classRef(owner));
+		push(opcode == NEW ? 1 : 0);
+	}
+
+	// method invocations, delta is the change of the stack depth
+	void invoke(int opcode, String owner, String name, String desc, int delta) {
+		u1(opcode);
+		if (opcode == INVOKEINTERFACE) {
+			u2(memberRef(INTERFACE_METHODREF, owner, name, desc));
+			u1((desc.endsWith(")V") ? 0 : 1) - delta); // number of argument slots, including the receiver
+			u1(0);
+		} else
+			u2(memberRef(METHODREF, owner, name, desc));
+		push(delta);
+	}
+
+	// removes and returns the code emitted so far, which must leave the operand stack empty
+	byte[] take() {
+		var chunk = Arrays.copyOf(code, size);
+		size = 0;
+		return chunk;
+	}
+
+	// appends a chunk returned by take()
+	void append(byte[] chunk) {
+		for (var b : chunk)
+			u1(b);
+	}
+
+	// conditional and unconditional jumps
+	void jump(int opcode, Label label) {
+		var pos = size;
+		u1(opcode);
+		if (label.pos >= 0)
+			u2(label.pos - pos);
+		else {
+			label.jumps.add(pos);
+			u2(0);
+		}
+		push(opcode == GOTO ? 0 : opcode == IFEQ || opcode == IFNE ? -1 : -2);
+	}
+
+	void place(Label label) {
+		label.pos = size;
+		for (var pos : label.jumps) {
+			var offset = size - pos;
+			code[pos + 1] = (byte) (offset >> 8);
+			code[pos + 2] = (byte) offset;
+		}
+	}
+
+	// completes a public static method whose code is the code emitted so far
+	void method(String methodName, String methodDesc) {
+		if (size > MAX_CODE)
+			throw new IllegalStateException("Method too large");
+		var name = utf8(methodName);
+		var desc = utf8(methodDesc);
+		var codeAttr = utf8("Code");
+		try (var out = new DataOutputStream(methods)) {
+			out.writeShort(0x0009); // public, static
+			out.writeShort(name);
+			out.writeShort(desc);
+			out.writeShort(1); // attributes of the method
+			out.writeShort(codeAttr);
+			out.writeInt(12 + size);
+			out.writeShort(maxStack);
+			out.writeShort(maxLocals);
+			out.writeInt(size);
+			out.write(code, 0, size);
+			out.writeShort(0); // exception table
+			out.writeShort(0); // attributes of the code
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		size = 0;
+		methodCount++;
+	}
+
+	// the class with the given name and the methods completed so far
+	byte[] toClass(String className) {
+		var thisClass = classRef(className);
+		var superClass = classRef("java/lang/Object");
+		var bytes = new ByteArrayOutputStream();
+		try (var out = new DataOutputStream(bytes)) {
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0); // minor version
+			out.writeShort(49); // major version
+			out.writeShort(poolCount);
+			pool.writeTo(out);
+			out.writeShort(0x0030); // final, super
+			out.writeShort(thisClass);
+			out.writeShort(superClass);
+			out.writeShort(0); // interfaces
+			out.writeShort(0); // fields
+			out.writeShort(methodCount);
+			methods.writeTo(out);
+			out.writeShort(0); // attributes of the class
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+}
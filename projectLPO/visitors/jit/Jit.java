@@ -0,0 +1,78 @@
+package projectLPO.visitors.jit;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.PrintWriter;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import projectLPO.parser.ast.Prog;
+import projectLPO.visitors.closures.ClosureEval;
+import projectLPO.visitors.evaluation.EvaluatorException;
+import projectLPO.visitors.evaluation.PairValue;
+
+/*
+ * alternative to Eval which compiles a whole program into a JVM class with a
+ * JitCompiler, loads it as a hidden class and runs its methods in order;
+ * programs must be type-checked and resolved by the Resolver, the observable
+ * behavior is the same as for Eval; programs with a top-level statement whose
+ * code is longer than ClassEmitter.MAX_CODE bytes, which HotSpot would never
+ * compile, are run by a ClosureEval instead
+ */
+public class Jit {
+
+	private static final MethodType RUN_TYPE = MethodType.methodType(void.class, PrintWriter.class, int[].class,
+			PairValue[].class);
+
+	private final PrintWriter printWriter; // output stream used to print values
+
+	public Jit(PrintWriter printWriter) {
+		this.printWriter = requireNonNull(printWriter);
+	}
+
+	// runtime support of the compiled code: the number of a season, checked as in Eval
+	public static int seasonOf(int val) {
+		if (!(val >= 0 && val <= 3))
+			throw new ArrayIndexOutOfBoundsException("Index -1 out of bounds for length 4");
+		return val;
+	}
+
+	// the methods of the class, in the order they must be called
+	private static MethodHandle[] load(byte[] classFile, int methods) {
+		try {
+			var lookup = MethodHandles.lookup().defineHiddenClass(classFile, true);
+			var code = new MethodHandle[methods];
+			for (var i = 0; i < methods; i++)
+				code[i] = lookup.findStatic(lookup.lookupClass(), JitCompiler.METHOD_PREFIX + i, RUN_TYPE);
+			return code;
+		} catch (IllegalAccessException | NoSuchMethodException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public void run(Prog prog) {
+		var compiler = new JitCompiler();
+		var classFile = compiler.compile(prog);
+		if (classFile == null) {
+			new ClosureEval(printWriter).run(prog);
+			return;
+		}
+		var code = load(classFile, compiler.methods());
+		var ints = new int[compiler.slots()];
+		var pairs = new PairValue[compiler.slots()];
+		try {
+			for (var method : code)
+				method.invokeExact(printWriter, ints, pairs);
+			// possible runtime errors
+			// IndexOutOfBoundsException: seasonof out of range
+		} catch (IndexOutOfBoundsException e) {
+			throw new EvaluatorException(e);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,539 @@
+package projectLPO.visitors.jit;
+
+import static projectLPO.visitors.jit.ClassEmitter.*;
+import static projectLPO.visitors.typechecking.PrimtType.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import projectLPO.environments.SlotEnvironment;
+import projectLPO.parser.ast.Block;
+import projectLPO.parser.ast.Exp;
+import projectLPO.parser.ast.Prog;
+import projectLPO.parser.ast.ResolvedVarIdent;
+import projectLPO.parser.ast.Stmt;
+import projectLPO.parser.ast.StmtSeq;
+import projectLPO.parser.ast.VarIdent;
+import projectLPO.visitors.Visitor;
+import projectLPO.visitors.jit.ClassEmitter.Label;
+import projectLPO.visitors.typechecking.ProdType;
+import projectLPO.visitors.typechecking.Type;
+
+/*
+ * compiles a whole program into a class with the static methods run0, run1, ...
+ * run(PrintWriter, int[], PairValue[]), to be called in this order; each method
+ * runs a group of consecutive top-level statements, and is at most MAX_CODE
+ * bytes long, so that HotSpot can compile it; programs must be type-checked
+ * and resolved by the Resolver: the variable in slot s is the local 3 + 2 * s,
+ * of type int for integers, booleans and seasons (by number) and PairValue for
+ * pairs, and the hidden counters of nested for loops are the locals 4, 6, ...;
+ * the top-level variables are passed from a method to the next ones in the
+ * arrays of the parameters, indexed by slot; the visitor returns the static
+ * type of expressions, whose value is left on the operand stack, unless the
+ * expression is compiled by branch() as a jump
+ */
+class JitCompiler implements Visitor<Type> {
+
+	private static final String PRINT_WRITER = "java/io/PrintWriter";
+	private static final String VALUE = "projectLPO/visitors/evaluation/Value";
+	private static final String PAIR_VALUE = "projectLPO/visitors/evaluation/PairValue";
+	private static final String SEASON_CLASS = "projectLPO/parser/Season";
+
+	static final String CLASS_NAME = "projectLPO/visitors/jit/Program";
+	static final String METHOD_PREFIX = "run";
+	static final String METHOD_DESC = "(L" + PRINT_WRITER + ";[I[L" + PAIR_VALUE + ";)V";
+
+	private static final int INTS = 1, PAIRS = 2; // the parameters with the top-level variables
+	private static final int TRANSFER = 10; // largest size of the code copying a variable between an array and a local
+
+	// code of a top-level statement, with the top-level variables it uses
+	private static final class Chunk {
+		private final byte[] code;
+		private final BitSet reads, writes, decs;
+
+		Chunk(byte[] code, BitSet reads, BitSet writes, BitSet decs) {
+			this.code = code;
+			this.reads = reads;
+			this.writes = writes;
+			this.decs = decs;
+		}
+	}
+
+	// emits the jumps of a condition to label when its value is when
+	@FunctionalInterface
+	private interface Condition {
+		void jump(boolean when, Label label);
+	}
+
+	private final SlotEnvironment<Type> types = new SlotEnvironment<>();
+	private final ClassEmitter emitter = new ClassEmitter(3);
+	private final List<Chunk> chunks = new ArrayList<>(); // the top-level statements compiled so far
+	private final BitSet topLevel = new BitSet(); // slots whose visible variable is declared at top level
+	private Type[] topTypes = new Type[16]; // types of the top-level variables, by slot
+	private int slots; // one more than the largest slot of the top-level variables
+	private BitSet reads = new BitSet(), writes = new BitSet(), decs = new BitSet(); // top-level variables of the current statement
+	private int blocks; // number of enclosing blocks
+	private int methods; // number of methods completed so far
+	private Label jumpTo; // if not null, the current boolean expression must jump to it instead of leaving a value
+	private boolean jumpWhen; // the value for which the jump is taken
+	private boolean jumped; // set by the expressions which have emitted the jump
+	private int loops; // number of enclosing for loops
+
+	/*
+	 * the class file of prog, null if the code of a top-level statement does not
+	 * fit in a method; the statements are grouped greedily
+	 */
+	byte[] compile(Prog prog) {
+		prog.accept(this);
+		var group = new ArrayList<Chunk>();
+		for (var chunk : chunks) {
+			group.add(chunk);
+			if (size(group) > MAX_CODE && group.size() > 1) {
+				group.remove(group.size() - 1);
+				method(group);
+				group.clear();
+				group.add(chunk);
+			}
+			if (size(group) > MAX_CODE)
+				return null;
+		}
+		if (!group.isEmpty())
+			method(group);
+		return emitter.toClass(CLASS_NAME);
+	}
+
+	// number of methods of the compiled class
+	int methods() {
+		return methods;
+	}
+
+	// length of the arrays of the top-level variables
+	int slots() {
+		return slots;
+	}
+
+	// variables which must be loaded from the arrays before the group, and stored after it
+	private static BitSet loads(List<Chunk> group) {
+		var loads = new BitSet();
+		var decs = new BitSet();
+		for (var chunk : group) {
+			loads.or(chunk.reads);
+			decs.or(chunk.decs);
+		}
+		loads.andNot(decs);
+		return loads;
+	}
+
+	private static BitSet stores(List<Chunk> group) {
+		var stores = new BitSet();
+		for (var chunk : group)
+			stores.or(chunk.writes);
+		return stores;
+	}
+
+	// upper bound of the size of the method of group
+	private static int size(List<Chunk> group) {
+		var size = 1 + TRANSFER * (loads(group).cardinality() + stores(group).cardinality());
+		for (var chunk : group)
+			size += chunk.code.length;
+		return size;
+	}
+
+	private void method(List<Chunk> group) {
+		var loads = loads(group);
+		for (var slot = loads.nextSetBit(0); slot >= 0; slot = loads.nextSetBit(slot + 1))
+			transfer(slot, true);
+		for (var chunk : group)
+			emitter.append(chunk.code);
+		var stores = stores(group);
+		for (var slot = stores.nextSetBit(0); slot >= 0; slot = stores.nextSetBit(slot + 1))
+			transfer(slot, false);
+		emitter.op(RETURN, 0);
+		emitter.method(METHOD_PREFIX + methods++, METHOD_DESC);
+	}
+
+	// copies the top-level variable in slot from its array to its local if load, otherwise back
+	private void transfer(int slot, boolean load) {
+		var isRef = isRef(topTypes[slot]);
+		emitter.local(ALOAD, isRef ? PAIRS : INTS);
+		emitter.iconst(slot);
+		if (load) {
+			emitter.op(isRef ? AALOAD : IALOAD, -1);
+			emitter.local(isRef ? ASTORE : ISTORE, local(slot));
+		} else {
+			emitter.local(isRef ? ALOAD : ILOAD, local(slot));
+			emitter.op(isRef ? AASTORE : IASTORE, -3);
+		}
+	}
+
+	private static int slot(VarIdent ident) {
+		return ((ResolvedVarIdent) ident).getSlot();
+	}
+
+	private static int local(int slot) {
+		return 3 + 2 * slot;
+	}
+
+	// the local of ident, which is recorded as read by the current statement
+	private int local(VarIdent ident) {
+		var slot = slot(ident);
+		if (topLevel.get(slot))
+			reads.set(slot);
+		return local(slot);
+	}
+
+	private static boolean isRef(Type type) {
+		return type instanceof ProdType;
+	}
+
+	// compiles exp leaving its value on the stack
+	private Type compile(Exp exp) {
+		var label = jumpTo;
+		jumpTo = null;
+		try {
+			return exp.accept(this);
+		} finally {
+			jumpTo = label;
+		}
+	}
+
+	// compiles the boolean expression exp as a jump to label when its value is when
+	private void branch(Exp exp, boolean when, Label label) {
+		var previousLabel = jumpTo;
+		var previousWhen = jumpWhen;
+		jumpTo = label;
+		jumpWhen = when;
+		jumped = false;
+		try {
+			exp.accept(this);
+			if (!jumped)
+				emitter.jump(when ? IFNE : IFEQ, label);
+		} finally {
+			jumpTo = previousLabel;
+			jumpWhen = previousWhen;
+			jumped = false;
+		}
+	}
+
+	// emits condition as a jump if required, otherwise leaves its value on the stack
+	private Type condition(Condition condition) {
+		if (jumpTo != null) {
+			condition.jump(jumpWhen, jumpTo);
+			jumped = true;
+			return BOOL;
+		}
+		var isFalse = new Label();
+		var end = new Label();
+		var depth = emitter.getStack();
+		condition.jump(false, isFalse);
+		emitter.iconst(1);
+		emitter.jump(GOTO, end);
+		emitter.place(isFalse);
+		emitter.setStack(depth);
+		emitter.iconst(0);
+		emitter.place(end);
+		return BOOL;
+	}
+
+	// boxes the value of type type on the stack
+	private void box(Type type) {
+		if (type == INT)
+			emitter.invoke(INVOKESTATIC, "projectLPO/visitors/evaluation/IntValue", "of",
+					"(I)LprojectLPO/visitors/evaluation/IntValue;", 0);
+		else if (type == BOOL)
+			emitter.invoke(INVOKESTATIC, "projectLPO/visitors/evaluation/BoolValue", "of",
+					"(Z)LprojectLPO/visitors/evaluation/BoolValue;", 0);
+		else if (type == SEASON)
+			emitter.invoke(INVOKESTATIC, "projectLPO/visitors/evaluation/SeasonValue", "of",
+					"(I)LprojectLPO/visitors/evaluation/SeasonValue;", 0);
+	}
+
+	// unboxes the Value of type type on the stack
+	private void unbox(Type type) {
+		if (type == INT)
+			emitter.invoke(INVOKEINTERFACE, VALUE, "toInt", "()I", 0);
+		else if (type == BOOL)
+			emitter.invoke(INVOKEINTERFACE, VALUE, "toBool", "()Z", 0);
+		else if (type == SEASON) {
+			emitter.invoke(INVOKEINTERFACE, VALUE, "toSeason", "()L" + SEASON_CLASS + ";", 0);
+			emitter.invoke(INVOKEVIRTUAL, SEASON_CLASS, "ordinal", "()I", 0);
+		} else
+			emitter.type(CHECKCAST, PAIR_VALUE);
+	}
+
+	private Type component(Exp exp, boolean fst) {
+		var type = (ProdType) compile(exp);
+		emitter.invoke(INVOKEVIRTUAL, PAIR_VALUE, fst ? "getFstVal" : "getSndVal", "()L" + VALUE + ";", 0);
+		var componentType = fst ? type.getFstType() : type.getSndType();
+		unbox(componentType);
+		return componentType;
+	}
+
+	private void store(VarIdent ident, Type type) {
+		var slot = slot(ident);
+		if (topLevel.get(slot))
+			writes.set(slot);
+		emitter.local(isRef(type) ? ASTORE : ISTORE, local(slot));
+	}
+
+	// programs
+
+	@Override
+	public Type visitProg(StmtSeq stmtSeq) {
+		stmtSeq.accept(this);
+		return null;
+	}
+
+	// statements
+
+	@Override
+	public Type visitAssignStmt(VarIdent ident, Exp exp) {
+		compile(exp);
+		store(ident, types.lookup(ident));
+		return null;
+	}
+
+	@Override
+	public Type visitPrintStmt(Exp exp) {
+		emitter.local(ALOAD, 0);
+		var type = compile(exp);
+		String desc;
+		if (type == INT)
+			desc = "(I)V";
+		else if (type == BOOL)
+			desc = "(Z)V";
+		else {
+			if (type == SEASON)
+				emitter.invoke(INVOKESTATIC, SEASON_CLASS, "of", "(I)L" + SEASON_CLASS + ";", 0);
+			desc = "(Ljava/lang/Object;)V";
+		}
+		emitter.invoke(INVOKEVIRTUAL, PRINT_WRITER, "println", desc, -2);
+		return null;
+	}
+
+	@Override
+	public Type visitVarStmt(VarIdent ident, Exp exp) {
+		var type = compile(exp);
+		types.dec(ident, type);
+		var slot = slot(ident);
+		if (blocks == 0) {
+			topLevel.set(slot);
+			decs.set(slot);
+			if (slot >= topTypes.length)
+				topTypes = Arrays.copyOf(topTypes, Math.max(2 * topTypes.length, slot + 1));
+			topTypes[slot] = type;
+			slots = Math.max(slots, slot + 1);
+		} else
+			topLevel.clear(slot);
+		store(ident, type);
+		return null;
+	}
+
+	/*
+	 * as in Eval, exp is evaluated once before the loop and then before each
+	 * iteration, and the loop runs on a hidden counter copied into the variable
+	 */
+	@Override
+	public Type visitForStmt(VarIdent ident, Exp exp, Block block) {
+		var counter = 4 + 2 * loops++;
+		var loop = new Label();
+		var exit = new Label();
+		emitter.local(ILOAD, local(ident));
+		emitter.local(ISTORE, counter);
+		compile(exp);
+		emitter.op(POP, -1);
+		emitter.place(loop);
+		emitter.local(ILOAD, counter);
+		compile(exp);
+		emitter.jump(IF_ICMPGT, exit);
+		emitter.local(ILOAD, counter);
+		store(ident, INT);
+		block.accept(this);
+		emitter.iinc(counter, 1);
+		emitter.jump(GOTO, loop);
+		emitter.place(exit);
+		emitter.local(ILOAD, counter);
+		store(ident, INT);
+		loops--;
+		return null;
+	}
+
+	@Override
+	public Type visitIfStmt(Exp exp, Block thenBlock, Block elseBlock) {
+		var isFalse = new Label();
+		branch(exp, false, isFalse);
+		thenBlock.accept(this);
+		if (elseBlock == null) {
+			emitter.place(isFalse);
+			return null;
+		}
+		var end = new Label();
+		emitter.jump(GOTO, end);
+		emitter.place(isFalse);
+		elseBlock.accept(this);
+		emitter.place(end);
+		return null;
+	}
+
+	@Override
+	public Type visitBlock(StmtSeq stmtSeq) {
+		blocks++;
+		stmtSeq.accept(this);
+		blocks--;
+		return null;
+	}
+
+	// sequences of statements; the top-level statements are taken out as chunks
+
+	@Override
+	public Type visitStmtList(List<Stmt> stmts) {
+		for (var stmt : stmts) {
+			stmt.accept(this);
+			if (blocks == 0) {
+				chunks.add(new Chunk(emitter.take(), reads, writes, decs));
+				reads = new BitSet();
+				writes = new BitSet();
+				decs = new BitSet();
+			}
+		}
+		return null;
+	}
+
+	// expressions; operands are evaluated from left to right
+
+	@Override
+	public Type visitAdd(Exp left, Exp right) {
+		compile(left);
+		compile(right);
+		emitter.op(IADD, -1);
+		return INT;
+	}
+
+	@Override
+	public Type visitIntLiteral(int value) {
+		emitter.iconst(value);
+		return INT;
+	}
+
+	@Override
+	public Type visitMul(Exp left, Exp right) {
+		compile(left);
+		compile(right);
+		emitter.op(IMUL, -1);
+		return INT;
+	}
+
+	@Override
+	public Type visitSign(Exp exp) {
+		compile(exp);
+		emitter.op(INEG, 0);
+		return INT;
+	}
+
+	@Override
+	public Type visitSeasonNum(Exp exp) {
+		compile(exp); // seasons are already represented by their numbers
+		return INT;
+	}
+
+	@Override
+	public Type visitSeasonOf(Exp exp) {
+		compile(exp);
+		emitter.invoke(INVOKESTATIC, "projectLPO/visitors/jit/Jit", "seasonOf", "(I)I", 0);
+		return SEASON;
+	}
+
+	@Override
+	public Type visitVarIdent(VarIdent id) {
+		var type = types.lookup(id);
+		emitter.local(isRef(type) ? ALOAD : ILOAD, local(id));
+		return type;
+	}
+
+	@Override
+	public Type visitNot(Exp exp) {
+		return condition((when, label) -> branch(exp, !when, label));
+	}
+
+	// the right operand is evaluated only if the left one is true
+	@Override
+	public Type visitAnd(Exp left, Exp right) {
+		return condition((when, label) -> {
+			if (!when) {
+				branch(left, false, label);
+				branch(right, false, label);
+				return;
+			}
+			var isFalse = new Label();
+			branch(left, false, isFalse);
+			branch(right, true, label);
+			emitter.place(isFalse);
+		});
+	}
+
+	@Override
+	public Type visitBoolLiteral(boolean value) {
+		emitter.iconst(value ? 1 : 0);
+		return BOOL;
+	}
+
+	@Override
+	public Type visitEq(Exp left, Exp right) {
+		return condition((when, label) -> {
+			if (isRef(compile(left))) {
+				compile(right);
+				emitter.invoke(INVOKEVIRTUAL, PAIR_VALUE, "equals", "(Ljava/lang/Object;)Z", -1);
+				emitter.jump(when ? IFNE : IFEQ, label);
+			} else {
+				compile(right);
+				emitter.jump(when ? IF_ICMPEQ : IF_ICMPNE, label);
+			}
+		});
+	}
+
+	// scalars are compared by number, and false is less than true
+	@Override
+	public Type visitLess(Exp left, Exp right) {
+		return condition((when, label) -> {
+			if (isRef(compile(left))) {
+				compile(right);
+				emitter.invoke(INVOKEVIRTUAL, PAIR_VALUE, "less", "(L" + VALUE + ";)Z", -1);
+				emitter.jump(when ? IFNE : IFEQ, label);
+			} else {
+				compile(right);
+				emitter.jump(when ? IF_ICMPLT : IF_ICMPGE, label);
+			}
+		});
+	}
+
+	@Override
+	public Type visitPairLit(Exp left, Exp right) {
+		emitter.type(NEW, PAIR_VALUE);
+		emitter.op(DUP, 1);
+		var lType = compile(left);
+		box(lType);
+		var rType = compile(right);
+		box(rType);
+		emitter.invoke(INVOKESPECIAL, PAIR_VALUE, "<init>", "(L" + VALUE + ";L" + VALUE + ";)V", -3);
+		return new ProdType(lType, rType);
+	}
+
+	@Override
+	public Type visitFst(Exp exp) {
+		return component(exp, true);
+	}
+
+	@Override
+	public Type visitSnd(Exp exp) {
+		return component(exp, false);
+	}
+
+	@Override
+	public Type visitSeasonLiteral(int value) {
+		emitter.iconst(value);
+		return SEASON;
+	}
+
+}
@@ -0,0 +1,229 @@
+package projectLPO.visitors.resolution;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import projectLPO.environments.SlotEnvironment;
+import projectLPO.parser.ast.*;
+import projectLPO.parser.ast.ResolvedVarIdent.Kind;
+import projectLPO.visitors.Visitor;
+import projectLPO.visitors.typechecking.PrimtType;
+import projectLPO.visitors.typechecking.Type;
+import projectLPO.visitors.typechecking.TypeCheck;
+
+/*
+ * builds a copy of a program where each occurrence of an identifier is a
+ * ResolvedVarIdent bound to the slot of its declaration, for evaluation with a
+ * SlotEnvironment; there are no functions, hence the frame of a block can be
+ * laid out right after the frame of the enclosing block, and a block reuses the
+ * slots of its exited siblings and of its previous executions; the scope of
+ * the program persists across calls, so that programs can be resolved one
+ * statement at a time; for well typed programs the types of declarations are
+ * computed by TypeCheck, and variables of type int, bool or season are stored
+ * in primitive slots
+ */
+public class Resolver implements Visitor<AST> {
+
+	private final List<Map<VarIdent, ResolvedVarIdent>> scopes = new ArrayList<>(); // innermost scope last
+	private int nextSlot; // first slot not used by the current scopes
+	private final SlotEnvironment<Type> types; // types of the resolved variables, null if not well typed
+	private final TypeCheck typeCheck; // computes the types of resolved expressions, null if not well typed
+
+	// typed must be true only if the program has been type-checked successfully
+	public Resolver(boolean typed) {
+		scopes.add(new HashMap<>());
+		types = typed ? new SlotEnvironment<>() : null;
+		typeCheck = typed ? new TypeCheck(types) : null;
+	}
+
+	public Resolver() {
+		this(false);
+	}
+
+	public Prog resolve(Prog prog) {
+		return (Prog) prog.accept(this);
+	}
+
+	private Exp resolve(Exp exp) {
+		return (Exp) exp.accept(this);
+	}
+
+	private Block resolve(Block block) {
+		return block == null ? null : (Block) block.accept(this);
+	}
+
+	private ResolvedVarIdent lookup(VarIdent ident) {
+		for (var i = scopes.size() - 1; i >= 0; i--) {
+			var resolved = scopes.get(i).get(ident);
+			if (resolved != null)
+				return resolved;
+		}
+		return new ResolvedVarIdent(ident, -1); // undeclared, SlotEnvironment raises the error
+	}
+
+	// declares ident with the value of the resolved expression exp
+	private ResolvedVarIdent declare(VarIdent ident, Exp exp) {
+		var scope = scopes.get(scopes.size() - 1);
+		if (scope.containsKey(ident))
+			return new ResolvedVarIdent(ident, -1); // already declared, SlotEnvironment raises the error
+		if (typeCheck == null) {
+			var resolved = new ResolvedVarIdent(ident, nextSlot++);
+			scope.put(ident, resolved);
+			return resolved;
+		}
+		var type = exp.accept(typeCheck);
+		var resolved = new ResolvedVarIdent(ident, nextSlot++, kind(type));
+		types.dec(resolved, type);
+		scope.put(ident, resolved);
+		return resolved;
+	}
+
+	private static Kind kind(Type type) {
+		if (type == PrimtType.INT)
+			return Kind.INT;
+		if (type == PrimtType.BOOL)
+			return Kind.BOOL;
+		if (type == PrimtType.SEASON)
+			return Kind.SEASON;
+		return Kind.VALUE; // pairs
+	}
+
+	// programs and sequences of statements
+
+	@Override
+	public AST visitProg(StmtSeq stmtSeq) {
+		return new ProgAST((StmtSeq) stmtSeq.accept(this));
+	}
+
+	@Override
+	public AST visitStmtList(List<Stmt> stmts) {
+		var resolved = new ArrayList<Stmt>(stmts.size());
+		for (var stmt : stmts)
+			resolved.add((Stmt) stmt.accept(this));
+		return new StmtList(resolved);
+	}
+
+	// statements; the expression of a declaration is resolved before the declaration
+
+	@Override
+	public AST visitAssignStmt(VarIdent ident, Exp exp) {
+		var resolvedExp = resolve(exp);
+		return new AssignStmt(lookup(ident), resolvedExp);
+	}
+
+	@Override
+	public AST visitPrintStmt(Exp exp) {
+		return new PrintStmt(resolve(exp));
+	}
+
+	@Override
+	public AST visitVarStmt(VarIdent ident, Exp exp) {
+		var resolvedExp = resolve(exp);
+		return new VarStmt(declare(ident, resolvedExp), resolvedExp);
+	}
+
+	@Override
+	public AST visitForStmt(VarIdent ident, Exp exp, Block block) {
+		return new ForStmt(lookup(ident), resolve(exp), resolve(block));
+	}
+
+	@Override
+	public AST visitIfStmt(Exp exp, Block thenBlock, Block elseBlock) {
+		return new IfStmt(resolve(exp), resolve(thenBlock), resolve(elseBlock));
+	}
+
+	@Override
+	public AST visitBlock(StmtSeq stmtSeq) {
+		var firstSlot = nextSlot;
+		scopes.add(new HashMap<>());
+		var resolved = new Block((StmtSeq) stmtSeq.accept(this));
+		scopes.remove(scopes.size() - 1);
+		nextSlot = firstSlot; // the slots of the block can be reused
+		return resolved;
+	}
+
+	// expressions
+
+	@Override
+	public AST visitAdd(Exp left, Exp right) {
+		return new Add(resolve(left), resolve(right));
+	}
+
+	@Override
+	public AST visitIntLiteral(int value) {
+		return new IntLiteral(value);
+	}
+
+	@Override
+	public AST visitEq(Exp left, Exp right) {
+		return new Eq(resolve(left), resolve(right));
+	}
+
+	@Override
+	public AST visitMul(Exp left, Exp right) {
+		return new Mul(resolve(left), resolve(right));
+	}
+
+	@Override
+	public AST visitSign(Exp exp) {
+		return new Sign(resolve(exp));
+	}
+
+	@Override
+	public AST visitVarIdent(VarIdent id) {
+		return lookup(id);
+	}
+
+	@Override
+	public AST visitNot(Exp exp) {
+		return new Not(resolve(exp));
+	}
+
+	@Override
+	public AST visitAnd(Exp left, Exp right) {
+		return new And(resolve(left), resolve(right));
+	}
+
+	@Override
+	public AST visitBoolLiteral(boolean value) {
+		return new BoolLiteral(value);
+	}
+
+	@Override
+	public AST visitPairLit(Exp left, Exp right) {
+		return new PairLit(resolve(left), resolve(right));
+	}
+
+	@Override
+	public AST visitFst(Exp exp) {
+		return new Fst(resolve(exp));
+	}
+
+	@Override
+	public AST visitSnd(Exp exp) {
+		return new Snd(resolve(exp));
+	}
+
+	@Override
+	public AST visitSeasonLiteral(int value) {
+		return new SeasonLiteral(value);
+	}
+
+	@Override
+	public AST visitSeasonNum(Exp exp) {
+		return new SeasonNum(resolve(exp));
+	}
+
+	@Override
+	public AST visitSeasonOf(Exp exp) {
+		return new SeasonOf(resolve(exp));
+	}
+
+	@Override
+	public AST visitLess(Exp left, Exp right) {
+		return new Less(resolve(left), resolve(right));
+	}
+
+}
@@ -0,0 +1,33 @@
+package projectLPO.visitors.serialization;
+
+/*
+ * binary format of compiled programs, written by AstWriter and read by AstReader:
+ *
+ * magic    the bytes 'L' 'P' 'O' 'C'
+ * version  varint, VERSION
+ * flags    one byte, TYPE_CHECKED if the program has been type-checked
+ * idents   varint n followed by n names, each one as varint length and UTF-8 bytes
+ * prog     the nodes of the program in pre-order
+ *
+ * each node is a tag byte followed by its payload and its children; identifiers
+ * are varint indexes in idents, NUM and SEASON literals are varints, statement
+ * lists start with the varint number of statements; varints are unsigned LEB128
+ * encodings of 32 bit values; VERSION must change whenever the format changes
+ */
+final class AstFormat {
+
+	static final byte[] MAGIC = { 'L', 'P', 'O', 'C' };
+	static final int VERSION = 1;
+	static final int TYPE_CHECKED = 1;
+
+	// tags of programs and statements
+	static final byte PROG = 0, STMT_LIST = 1, BLOCK = 2, ASSIGN = 3, VAR = 4, PRINT = 5, IF = 6, IF_ELSE = 7,
+			FOR = 8;
+	// tags of expressions
+	static final byte ADD = 16, MUL = 17, EQ = 18, LESS = 19, AND = 20, SIGN = 21, NOT = 22, FST = 23, SND = 24,
+			SEASON_NUM = 25, SEASON_OF = 26, PAIR = 27, INT = 28, TRUE = 29, FALSE = 30, SEASON = 31, IDENT = 32;
+
+	private AstFormat() {
+	}
+
+}
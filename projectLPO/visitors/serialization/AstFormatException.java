@@ -0,0 +1,26 @@
+package projectLPO.visitors.serialization;
+
+public class AstFormatException extends Exception {
+
+	public AstFormatException() {
+		super();
+	}
+
+	public AstFormatException(String message, Throwable cause, boolean enableSuppression,
+			boolean writableStackTrace) {
+		super(message, cause, enableSuppression, writableStackTrace);
+	}
+
+	public AstFormatException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+	public AstFormatException(String message) {
+		super(message);
+	}
+
+	public AstFormatException(Throwable cause) {
+		super(cause);
+	}
+
+}
@@ -0,0 +1,168 @@
+package projectLPO.visitors.serialization;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static projectLPO.visitors.serialization.AstFormat.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import projectLPO.parser.ast.*;
+
+/*
+ * rebuilds programs from the binary format described in AstFormat, identifiers
+ * are interned in the given symbol table; no tokenizer, parser or type checker
+ * is involved
+ */
+public class AstReader {
+
+	private final byte[] bytes;
+	private int pos; // offset of the next byte to read
+	private final VarIdent[] idents;
+	private final boolean typeChecked;
+
+	// reads the header of the program in bytes
+	public AstReader(byte[] bytes, SymbolTable symbolTable) throws AstFormatException {
+		this.bytes = bytes;
+		try {
+			if (bytes.length < MAGIC.length || !Arrays.equals(bytes, 0, MAGIC.length, MAGIC, 0, MAGIC.length))
+				throw new AstFormatException("Not a compiled program");
+			pos = MAGIC.length;
+			var version = readVarint();
+			if (version != VERSION)
+				throw new AstFormatException("Unsupported version " + version + ", expecting " + VERSION);
+			typeChecked = (bytes[pos++] & TYPE_CHECKED) != 0;
+			var count = readVarint();
+			if (count < 0 || count > bytes.length - pos) // each name takes at least one byte
+				throw new AstFormatException("Corrupted identifier table");
+			idents = new VarIdent[count];
+			for (var i = 0; i < idents.length; i++) {
+				var length = readVarint();
+				idents[i] = symbolTable.intern(new String(bytes, pos, length, UTF_8));
+				pos += length;
+			}
+		} catch (IndexOutOfBoundsException | NegativeArraySizeException e) {
+			throw new AstFormatException("Truncated header", e);
+		}
+	}
+
+	// reads the program in the file with path inputPath
+	public static AstReader open(String inputPath, SymbolTable symbolTable) throws IOException, AstFormatException {
+		return new AstReader(Files.readAllBytes(Path.of(inputPath)), symbolTable);
+	}
+
+	// whether the program was type-checked before being written
+	public boolean isTypeChecked() {
+		return typeChecked;
+	}
+
+	public Prog readProg() throws AstFormatException {
+		try {
+			expect(PROG);
+			var prog = new ProgAST(readStmtSeq());
+			if (pos != bytes.length)
+				throw new AstFormatException("Unexpected data at offset " + pos);
+			return prog;
+		} catch (IndexOutOfBoundsException e) {
+			throw new AstFormatException("Truncated or corrupted program", e);
+		}
+	}
+
+	private int readVarint() {
+		var value = 0;
+		for (var shift = 0;; shift += 7) {
+			var b = bytes[pos++];
+			value |= (b & 0x7F) << shift;
+			if (b >= 0)
+				return value;
+		}
+	}
+
+	private void expect(byte tag) throws AstFormatException {
+		if (bytes[pos++] != tag)
+			throw new AstFormatException("Expecting tag " + tag + " at offset " + (pos - 1) + ", found " + bytes[pos - 1]);
+	}
+
+	private AstFormatException unknownTag() {
+		return new AstFormatException("Unknown tag " + bytes[pos - 1] + " at offset " + (pos - 1));
+	}
+
+	private StmtSeq readStmtSeq() throws AstFormatException {
+		expect(STMT_LIST);
+		var count = readVarint();
+		if (count <= 0)
+			throw new AstFormatException("Empty statement list at offset " + pos);
+		var stmts = new ArrayList<Stmt>(Math.min(count, bytes.length));
+		for (var i = 0; i < count; i++)
+			stmts.add(readStmt());
+		return new StmtList(stmts);
+	}
+
+	private Block readBlock() throws AstFormatException {
+		expect(BLOCK);
+		return new Block(readStmtSeq());
+	}
+
+	private Stmt readStmt() throws AstFormatException {
+		switch (bytes[pos++]) {
+		case ASSIGN:
+			return new AssignStmt(idents[readVarint()], readExp());
+		case VAR:
+			return new VarStmt(idents[readVarint()], readExp());
+		case PRINT:
+			return new PrintStmt(readExp());
+		case IF:
+			return new IfStmt(readExp(), readBlock());
+		case IF_ELSE:
+			return new IfStmt(readExp(), readBlock(), readBlock());
+		case FOR:
+			return new ForStmt(idents[readVarint()], readExp(), readBlock());
+		default:
+			throw unknownTag();
+		}
+	}
+
+	private Exp readExp() throws AstFormatException {
+		switch (bytes[pos++]) {
+		case ADD:
+			return new Add(readExp(), readExp());
+		case MUL:
+			return new Mul(readExp(), readExp());
+		case EQ:
+			return new Eq(readExp(), readExp());
+		case LESS:
+			return new Less(readExp(), readExp());
+		case AND:
+			return new And(readExp(), readExp());
+		case PAIR:
+			return new PairLit(readExp(), readExp());
+		case SIGN:
+			return new Sign(readExp());
+		case NOT:
+			return new Not(readExp());
+		case FST:
+			return new Fst(readExp());
+		case SND:
+			return new Snd(readExp());
+		case SEASON_NUM:
+			return new SeasonNum(readExp());
+		case SEASON_OF:
+			return new SeasonOf(readExp());
+		case INT:
+			return new IntLiteral(readVarint());
+		case TRUE:
+			return new BoolLiteral(true);
+		case FALSE:
+			return new BoolLiteral(false);
+		case SEASON:
+			return new SeasonLiteral(readVarint());
+		case IDENT:
+			return idents[readVarint()];
+		default:
+			throw unknownTag();
+		}
+	}
+
+}
@@ -0,0 +1,259 @@
+package projectLPO.visitors.serialization;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static projectLPO.visitors.serialization.AstFormat.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import projectLPO.parser.ast.Block;
+import projectLPO.parser.ast.Exp;
+import projectLPO.parser.ast.Prog;
+import projectLPO.parser.ast.Stmt;
+import projectLPO.parser.ast.StmtSeq;
+import projectLPO.parser.ast.VarIdent;
+import projectLPO.visitors.Visitor;
+
+// serializes programs in the binary format described in AstFormat
+public class AstWriter implements Visitor<Void> {
+
+	private byte[] buf = new byte[4096];
+	private int size; // number of written bytes
+	private final Map<VarIdent, Integer> identIndexes = new HashMap<>(); // indexes in idents
+	private final List<VarIdent> idents = new ArrayList<>(); // identifiers in order of first occurrence
+
+	private AstWriter() {
+	}
+
+	// serializes prog, typeChecked tells whether prog has been type-checked
+	public static byte[] write(Prog prog, boolean typeChecked) {
+		var body = new AstWriter();
+		prog.accept(body);
+		var out = new AstWriter();
+		out.writeBytes(MAGIC, MAGIC.length);
+		out.writeVarint(VERSION);
+		out.writeByte(typeChecked ? TYPE_CHECKED : 0);
+		out.writeVarint(body.idents.size());
+		for (var ident : body.idents) {
+			var name = ident.getName().getBytes(UTF_8);
+			out.writeVarint(name.length);
+			out.writeBytes(name, name.length);
+		}
+		out.writeBytes(body.buf, body.size);
+		return Arrays.copyOf(out.buf, out.size);
+	}
+
+	// serializes prog into the file with path outputPath
+	public static void write(Prog prog, boolean typeChecked, String outputPath) throws IOException {
+		Files.write(Path.of(outputPath), write(prog, typeChecked));
+	}
+
+	private void ensureCapacity(int minCapacity) {
+		if (minCapacity > buf.length)
+			buf = Arrays.copyOf(buf, Math.max(2 * buf.length, minCapacity));
+	}
+
+	private void writeByte(int b) {
+		ensureCapacity(size + 1);
+		buf[size++] = (byte) b;
+	}
+
+	private void writeBytes(byte[] bytes, int length) {
+		ensureCapacity(size + length);
+		System.arraycopy(bytes, 0, buf, size, length);
+		size += length;
+	}
+
+	private void writeVarint(int value) {
+		ensureCapacity(size + 5);
+		while ((value & ~0x7F) != 0) {
+			buf[size++] = (byte) (value & 0x7F | 0x80);
+			value >>>= 7;
+		}
+		buf[size++] = (byte) value;
+	}
+
+	private void writeIdent(VarIdent ident) {
+		var index = identIndexes.get(ident);
+		if (index == null) {
+			index = idents.size();
+			idents.add(ident);
+			identIndexes.put(ident, index);
+		}
+		writeVarint(index);
+	}
+
+	private Void writeBinary(byte tag, Exp left, Exp right) {
+		writeByte(tag);
+		left.accept(this);
+		right.accept(this);
+		return null;
+	}
+
+	private Void writeUnary(byte tag, Exp exp) {
+		writeByte(tag);
+		exp.accept(this);
+		return null;
+	}
+
+	// programs and statements
+
+	@Override
+	public Void visitProg(StmtSeq stmtSeq) {
+		writeByte(PROG);
+		stmtSeq.accept(this);
+		return null;
+	}
+
+	@Override
+	public Void visitStmtList(List<Stmt> stmts) {
+		writeByte(STMT_LIST);
+		writeVarint(stmts.size());
+		for (var stmt : stmts)
+			stmt.accept(this);
+		return null;
+	}
+
+	@Override
+	public Void visitBlock(StmtSeq stmtSeq) {
+		writeByte(BLOCK);
+		stmtSeq.accept(this);
+		return null;
+	}
+
+	@Override
+	public Void visitAssignStmt(VarIdent ident, Exp exp) {
+		writeByte(ASSIGN);
+		writeIdent(ident);
+		exp.accept(this);
+		return null;
+	}
+
+	@Override
+	public Void visitVarStmt(VarIdent ident, Exp exp) {
+		writeByte(VAR);
+		writeIdent(ident);
+		exp.accept(this);
+		return null;
+	}
+
+	@Override
+	public Void visitPrintStmt(Exp exp) {
+		return writeUnary(PRINT, exp);
+	}
+
+	@Override
+	public Void visitIfStmt(Exp exp, Block thenBlock, Block elseBlock) {
+		writeByte(elseBlock == null ? IF : IF_ELSE);
+		exp.accept(this);
+		thenBlock.accept(this);
+		if (elseBlock != null)
+			elseBlock.accept(this);
+		return null;
+	}
+
+	@Override
+	public Void visitForStmt(VarIdent ident, Exp exp, Block block) {
+		writeByte(FOR);
+		writeIdent(ident);
+		exp.accept(this);
+		block.accept(this);
+		return null;
+	}
+
+	// expressions
+
+	@Override
+	public Void visitAdd(Exp left, Exp right) {
+		return writeBinary(ADD, left, right);
+	}
+
+	@Override
+	public Void visitMul(Exp left, Exp right) {
+		return writeBinary(MUL, left, right);
+	}
+
+	@Override
+	public Void visitEq(Exp left, Exp right) {
+		return writeBinary(EQ, left, right);
+	}
+
+	@Override
+	public Void visitLess(Exp left, Exp right) {
+		return writeBinary(LESS, left, right);
+	}
+
+	@Override
+	public Void visitAnd(Exp left, Exp right) {
+		return writeBinary(AND, left, right);
+	}
+
+	@Override
+	public Void visitPairLit(Exp left, Exp right) {
+		return writeBinary(PAIR, left, right);
+	}
+
+	@Override
+	public Void visitSign(Exp exp) {
+		return writeUnary(SIGN, exp);
+	}
+
+	@Override
+	public Void visitNot(Exp exp) {
+		return writeUnary(NOT, exp);
+	}
+
+	@Override
+	public Void visitFst(Exp exp) {
+		return writeUnary(FST, exp);
+	}
+
+	@Override
+	public Void visitSnd(Exp exp) {
+		return writeUnary(SND, exp);
+	}
+
+	@Override
+	public Void visitSeasonNum(Exp exp) {
+		return writeUnary(SEASON_NUM, exp);
+	}
+
+	@Override
+	public Void visitSeasonOf(Exp exp) {
+		return writeUnary(SEASON_OF, exp);
+	}
+
+	@Override
+	public Void visitIntLiteral(int value) {
+		writeByte(INT);
+		writeVarint(value);
+		return null;
+	}
+
+	@Override
+	public Void visitBoolLiteral(boolean value) {
+		writeByte(value ? TRUE : FALSE);
+		return null;
+	}
+
+	@Override
+	public Void visitSeasonLiteral(int value) {
+		writeByte(SEASON);
+		writeVarint(value);
+		return null;
+	}
+
+	@Override
+	public Void visitVarIdent(VarIdent id) {
+		writeByte(IDENT);
+		writeIdent(id);
+		return null;
+	}
+
+}
@@ -0,0 +1,24 @@
+package projectLPO.visitors.specialization;
+
+// node with two children, executed from left to right
+abstract class BinaryNode extends Node {
+
+	Node left;
+	Node right;
+
+	BinaryNode(Node left, Node right) {
+		this.left = adopt(left);
+		this.right = adopt(right);
+	}
+
+	@Override
+	void replaceChild(Node child, Node node) {
+		if (left == child)
+			left = node;
+		else if (right == child)
+			right = node;
+		else
+			super.replaceChild(child, node);
+	}
+
+}
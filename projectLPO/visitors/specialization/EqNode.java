@@ -0,0 +1,157 @@
+package projectLPO.visitors.specialization;
+
+import static java.util.Objects.requireNonNull;
+
+import projectLPO.parser.ast.AST;
+import projectLPO.visitors.evaluation.BoolValue;
+import projectLPO.visitors.evaluation.IntValue;
+import projectLPO.visitors.evaluation.PairValue;
+import projectLPO.visitors.evaluation.SeasonValue;
+import projectLPO.visitors.evaluation.Value;
+
+/*
+ * equality, specialized by the kinds of its operands: integers and booleans
+ * are compared unboxed, seasons by identity and pairs structurally; operands
+ * of different kinds are never equal, they get the generic variant
+ */
+abstract class EqNode extends BinaryNode {
+
+	private final AST source;
+
+	EqNode(Node left, Node right, AST source) {
+		super(left, right);
+		this.source = requireNonNull(source);
+	}
+
+	@Override
+	AST getSource() {
+		return source;
+	}
+
+	@Override
+	Value execute(Frame frame) {
+		return BoolValue.of(executeBool(frame));
+	}
+
+	@Override
+	abstract boolean executeBool(Frame frame);
+
+	// replaces this node by the variant for the operands, then compares them
+	boolean respecialize(Value l, Value r) {
+		replace(specialize(l, r));
+		return l.equals(r);
+	}
+
+	private EqNode specialize(Value l, Value r) {
+		if (!isMegamorphic()) {
+			if (l instanceof IntValue && r instanceof IntValue)
+				return new IntEq(left, right, source);
+			if (l instanceof BoolValue && r instanceof BoolValue)
+				return new BoolEq(left, right, source);
+			if (l instanceof SeasonValue && r instanceof SeasonValue)
+				return new SeasonEq(left, right, source);
+			if (l instanceof PairValue && r instanceof PairValue)
+				return new PairEq(left, right, source);
+		}
+		return new GenericEq(left, right, source);
+	}
+
+	// not executed yet
+	static final class UninitializedEq extends EqNode {
+		UninitializedEq(Node left, Node right, AST source) {
+			super(left, right, source);
+		}
+
+		@Override
+		boolean executeBool(Frame frame) {
+			var l = left.execute(frame);
+			return respecialize(l, right.execute(frame));
+		}
+	}
+
+	static final class IntEq extends EqNode {
+		IntEq(Node left, Node right, AST source) {
+			super(left, right, source);
+		}
+
+		@Override
+		boolean executeBool(Frame frame) {
+			int l;
+			try {
+				l = left.executeInt(frame);
+			} catch (UnexpectedResultException e) {
+				return respecialize(e.getResult(), right.execute(frame));
+			}
+			try {
+				return l == right.executeInt(frame);
+			} catch (UnexpectedResultException e) {
+				return respecialize(IntValue.of(l), e.getResult());
+			}
+		}
+	}
+
+	static final class BoolEq extends EqNode {
+		BoolEq(Node left, Node right, AST source) {
+			super(left, right, source);
+		}
+
+		@Override
+		boolean executeBool(Frame frame) {
+			boolean l;
+			try {
+				l = left.executeBool(frame);
+			} catch (UnexpectedResultException e) {
+				return respecialize(e.getResult(), right.execute(frame));
+			}
+			try {
+				return l == right.executeBool(frame);
+			} catch (UnexpectedResultException e) {
+				return respecialize(BoolValue.of(l), e.getResult());
+			}
+		}
+	}
+
+	// seasons are canonical, hence equality is identity
+	static final class SeasonEq extends EqNode {
+		SeasonEq(Node left, Node right, AST source) {
+			super(left, right, source);
+		}
+
+		@Override
+		boolean executeBool(Frame frame) {
+			var l = left.execute(frame);
+			var r = right.execute(frame);
+			if (l instanceof SeasonValue && r instanceof SeasonValue)
+				return l == r;
+			return respecialize(l, r);
+		}
+	}
+
+	static final class PairEq extends EqNode {
+		PairEq(Node left, Node right, AST source) {
+			super(left, right, source);
+		}
+
+		@Override
+		boolean executeBool(Frame frame) {
+			var l = left.execute(frame);
+			var r = right.execute(frame);
+			if (l instanceof PairValue && r instanceof PairValue)
+				return ((PairValue) l).equals(r);
+			return respecialize(l, r);
+		}
+	}
+
+	static final class GenericEq extends EqNode {
+		GenericEq(Node left, Node right, AST source) {
+			super(left, right, source);
+		}
+
+		@Override
+		boolean executeBool(Frame frame) {
+			var l = left.execute(frame);
+			return l.equals(right.execute(frame));
+		}
+	}
+
+}
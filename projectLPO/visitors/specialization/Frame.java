@@ -0,0 +1,33 @@
+package projectLPO.visitors.specialization;
+
+import java.util.Arrays;
+
+import projectLPO.visitors.evaluation.Value;
+
+/*
+ * variables of a tree of Nodes, indexed by the slots of the Resolver: the
+ * values are in values, except for integers, which are stored unboxed in ints
+ * and marked by UNBOXED in values
+ */
+final class Frame {
+
+	// marks the slots holding an integer in ints, it is never the value of an expression
+	static final Value UNBOXED = new Value() {
+		@Override
+		public boolean less(Value object) {
+			throw new IllegalStateException("Unboxed slot");
+		}
+	};
+
+	Value[] values = new Value[16];
+	int[] ints = new int[16];
+
+	void ensureCapacity(int size) {
+		if (size > values.length) {
+			var capacity = Math.max(2 * values.length, size);
+			values = Arrays.copyOf(values, capacity);
+			ints = Arrays.copyOf(ints, capacity);
+		}
+	}
+
+}
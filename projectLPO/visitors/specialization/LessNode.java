@@ -0,0 +1,156 @@
+package projectLPO.visitors.specialization;
+
+import static java.util.Objects.requireNonNull;
+
+import projectLPO.parser.ast.AST;
+import projectLPO.visitors.evaluation.BoolValue;
+import projectLPO.visitors.evaluation.IntValue;
+import projectLPO.visitors.evaluation.PairValue;
+import projectLPO.visitors.evaluation.SeasonValue;
+import projectLPO.visitors.evaluation.Value;
+
+/*
+ * comparison, specialized by the kinds of its operands as EqNode; scalars are
+ * compared by number, and false is less than true; operands of different
+ * kinds get the generic variant, which raises the same errors as Eval
+ */
+abstract class LessNode extends BinaryNode {
+
+	private final AST source;
+
+	LessNode(Node left, Node right, AST source) {
+		super(left, right);
+		this.source = requireNonNull(source);
+	}
+
+	@Override
+	AST getSource() {
+		return source;
+	}
+
+	@Override
+	Value execute(Frame frame) {
+		return BoolValue.of(executeBool(frame));
+	}
+
+	@Override
+	abstract boolean executeBool(Frame frame);
+
+	// replaces this node by the variant for the operands, then compares them
+	boolean respecialize(Value l, Value r) {
+		replace(specialize(l, r));
+		return l.less(r);
+	}
+
+	private LessNode specialize(Value l, Value r) {
+		if (!isMegamorphic()) {
+			if (l instanceof IntValue && r instanceof IntValue)
+				return new IntLess(left, right, source);
+			if (l instanceof BoolValue && r instanceof BoolValue)
+				return new BoolLess(left, right, source);
+			if (l instanceof SeasonValue && r instanceof SeasonValue)
+				return new SeasonLess(left, right, source);
+			if (l instanceof PairValue && r instanceof PairValue)
+				return new PairLess(left, right, source);
+		}
+		return new GenericLess(left, right, source);
+	}
+
+	// not executed yet
+	static final class UninitializedLess extends LessNode {
+		UninitializedLess(Node left, Node right, AST source) {
+			super(left, right, source);
+		}
+
+		@Override
+		boolean executeBool(Frame frame) {
+			var l = left.execute(frame);
+			return respecialize(l, right.execute(frame));
+		}
+	}
+
+	static final class IntLess extends LessNode {
+		IntLess(Node left, Node right, AST source) {
+			super(left, right, source);
+		}
+
+		@Override
+		boolean executeBool(Frame frame) {
+			int l;
+			try {
+				l = left.executeInt(frame);
+			} catch (UnexpectedResultException e) {
+				return respecialize(e.getResult(), right.execute(frame));
+			}
+			try {
+				return l < right.executeInt(frame);
+			} catch (UnexpectedResultException e) {
+				return respecialize(IntValue.of(l), e.getResult());
+			}
+		}
+	}
+
+	static final class BoolLess extends LessNode {
+		BoolLess(Node left, Node right, AST source) {
+			super(left, right, source);
+		}
+
+		@Override
+		boolean executeBool(Frame frame) {
+			boolean l;
+			try {
+				l = left.executeBool(frame);
+			} catch (UnexpectedResultException e) {
+				return respecialize(e.getResult(), right.execute(frame));
+			}
+			try {
+				return !l && right.executeBool(frame);
+			} catch (UnexpectedResultException e) {
+				return respecialize(BoolValue.of(l), e.getResult());
+			}
+		}
+	}
+
+	static final class SeasonLess extends LessNode {
+		SeasonLess(Node left, Node right, AST source) {
+			super(left, right, source);
+		}
+
+		@Override
+		boolean executeBool(Frame frame) {
+			var l = left.execute(frame);
+			var r = right.execute(frame);
+			if (l instanceof SeasonValue && r instanceof SeasonValue)
+				return l.toSeason().ordinal() < r.toSeason().ordinal();
+			return respecialize(l, r);
+		}
+	}
+
+	static final class PairLess extends LessNode {
+		PairLess(Node left, Node right, AST source) {
+			super(left, right, source);
+		}
+
+		@Override
+		boolean executeBool(Frame frame) {
+			var l = left.execute(frame);
+			var r = right.execute(frame);
+			if (l instanceof PairValue && r instanceof PairValue)
+				return l.less(r);
+			return respecialize(l, r);
+		}
+	}
+
+	static final class GenericLess extends LessNode {
+		GenericLess(Node left, Node right, AST source) {
+			super(left, right, source);
+		}
+
+		@Override
+		boolean executeBool(Frame frame) {
+			var l = left.execute(frame);
+			return l.less(right.execute(frame));
+		}
+	}
+
+}
@@ -0,0 +1,95 @@
+package projectLPO.visitors.specialization;
+
+import projectLPO.parser.ast.AST;
+import projectLPO.visitors.evaluation.BoolValue;
+import projectLPO.visitors.evaluation.IntValue;
+import projectLPO.visitors.evaluation.Value;
+
+/*
+ * node of a tree built by a NodeBuilder and run on a Frame; expressions return
+ * their value, statements return null; a specializing node replaces itself in
+ * its parent with a variant for the kinds of the values it observes, whose
+ * guards replace it again when another kind shows up; after
+ * MAX_SPECIALIZATIONS replacements a node gets its generic variant, which has
+ * no guards
+ */
+abstract class Node {
+
+	static final int MAX_SPECIALIZATIONS = 3;
+
+	private Node parent; // null for the Root
+	private int specializations; // number of replacements which led to this node
+
+	abstract Value execute(Frame frame);
+
+	// value of an integer expression, values of other kinds are thrown in an UnexpectedResultException
+	int executeInt(Frame frame) {
+		var value = execute(frame);
+		if (value instanceof IntValue)
+			return value.toInt();
+		throw new UnexpectedResultException(value);
+	}
+
+	// value of a boolean expression, values of other kinds are thrown in an UnexpectedResultException
+	boolean executeBool(Frame frame) {
+		var value = execute(frame);
+		if (value instanceof BoolValue)
+			return value.toBool();
+		throw new UnexpectedResultException(value);
+	}
+
+	// operands converted as in Eval, the conversion of a value of another kind throws an EvaluatorException
+
+	static int intOf(Node node, Frame frame) {
+		try {
+			return node.executeInt(frame);
+		} catch (UnexpectedResultException e) {
+			return e.getResult().toInt();
+		}
+	}
+
+	static boolean boolOf(Node node, Frame frame) {
+		try {
+			return node.executeBool(frame);
+		} catch (UnexpectedResultException e) {
+			return e.getResult().toBool();
+		}
+	}
+
+	// tree structure
+
+	<N extends Node> N adopt(N child) {
+		if (child != null)
+			((Node) child).parent = this;
+		return child;
+	}
+
+	// replaces child by node, overridden by the nodes with children
+	void replaceChild(Node child, Node node) {
+		throw new IllegalStateException("Unknown child");
+	}
+
+	// program fragment executed by a specializing node, null for the other nodes
+	AST getSource() {
+		return null;
+	}
+
+	// whether the next replacement must be the generic variant
+	boolean isMegamorphic() {
+		return specializations >= MAX_SPECIALIZATIONS;
+	}
+
+	// replaces this node by node in the tree, and records the replacement
+	<N extends Node> N replace(N node) {
+		Node replacement = node;
+		replacement.parent = parent;
+		replacement.specializations = specializations + 1;
+		parent.replaceChild(this, node);
+		var root = parent;
+		while (root.parent != null)
+			root = root.parent;
+		((Root) root).getSpecializations().replaced(this, node);
+		return node;
+	}
+
+}
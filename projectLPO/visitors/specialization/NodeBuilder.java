@@ -0,0 +1,457 @@
+package projectLPO.visitors.specialization;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.PrintWriter;
+import java.util.List;
+
+import projectLPO.environments.EnvironmentException;
+import projectLPO.parser.ast.Block;
+import projectLPO.parser.ast.Eq;
+import projectLPO.parser.ast.Exp;
+import projectLPO.parser.ast.Less;
+import projectLPO.parser.ast.Prog;
+import projectLPO.parser.ast.ResolvedVarIdent;
+import projectLPO.parser.ast.Stmt;
+import projectLPO.parser.ast.StmtSeq;
+import projectLPO.parser.ast.VarIdent;
+import projectLPO.visitors.Visitor;
+import projectLPO.visitors.evaluation.BoolValue;
+import projectLPO.visitors.evaluation.IntValue;
+import projectLPO.visitors.evaluation.PairValue;
+import projectLPO.visitors.evaluation.SeasonValue;
+import projectLPO.visitors.evaluation.Value;
+import projectLPO.visitors.specialization.EqNode.UninitializedEq;
+import projectLPO.visitors.specialization.LessNode.UninitializedLess;
+import projectLPO.visitors.specialization.StoreNode.UninitializedStore;
+
+/*
+ * builds the tree of Nodes of a program resolved by the Resolver; static types
+ * are not used, hence the program need not be type-checked; equality,
+ * comparisons and stores of variables start uninitialized and specialize
+ * themselves when they are first executed; the errors of undeclared variables
+ * are raised when the nodes are executed, as in Eval
+ */
+class NodeBuilder implements Visitor<Node> {
+
+	private final PrintWriter printWriter; // output stream used to print values
+	private final Specializations specializations;
+	private int frameSize; // number of slots used by the built program
+
+	NodeBuilder(PrintWriter printWriter, Specializations specializations) {
+		this.printWriter = requireNonNull(printWriter);
+		this.specializations = requireNonNull(specializations);
+	}
+
+	Root build(Prog prog) {
+		return new Root(prog.accept(this), specializations);
+	}
+
+	int getFrameSize() {
+		return frameSize;
+	}
+
+	private Node build(Exp exp) {
+		return exp.accept(this);
+	}
+
+	private <N extends Node> N specializing(N node) {
+		specializations.created(node);
+		return node;
+	}
+
+	private int slot(VarIdent ident) {
+		var slot = ((ResolvedVarIdent) ident).getSlot();
+		frameSize = Math.max(frameSize, slot + 1);
+		return slot;
+	}
+
+	private static void storeInt(Frame frame, int slot, int value) {
+		frame.ints[slot] = value;
+		frame.values[slot] = Frame.UNBOXED;
+	}
+
+	// sequence of statements
+	private static final class Seq extends Node {
+		private final Node[] stmts;
+
+		Seq(Node[] stmts) {
+			this.stmts = stmts;
+			for (var stmt : stmts)
+				adopt(stmt);
+		}
+
+		@Override
+		Value execute(Frame frame) {
+			for (var stmt : stmts)
+				stmt.execute(frame);
+			return null;
+		}
+
+		@Override
+		void replaceChild(Node child, Node node) {
+			for (var i = 0; i < stmts.length; i++)
+				if (stmts[i] == child) {
+					stmts[i] = node;
+					return;
+				}
+			super.replaceChild(child, node);
+		}
+	}
+
+	private static final class If extends Node {
+		private Node exp;
+		private final Node thenBlock;
+		private final Node elseBlock; // null if missing
+
+		If(Node exp, Node thenBlock, Node elseBlock) {
+			this.exp = adopt(exp);
+			this.thenBlock = adopt(thenBlock);
+			this.elseBlock = adopt(elseBlock);
+		}
+
+		@Override
+		Value execute(Frame frame) {
+			if (boolOf(exp, frame))
+				thenBlock.execute(frame);
+			else if (elseBlock != null)
+				elseBlock.execute(frame);
+			return null;
+		}
+
+		@Override
+		void replaceChild(Node child, Node node) {
+			if (exp == child)
+				exp = node;
+			else
+				super.replaceChild(child, node);
+		}
+	}
+
+	/*
+	 * as in Eval, exp is evaluated once before the loop and then before each
+	 * iteration, and the loop runs on a hidden counter stored unboxed in the
+	 * variable
+	 */
+	private static final class For extends Node {
+		private final Node ident;
+		private final int slot;
+		private Node exp;
+		private final Node block;
+
+		For(Node ident, int slot, Node exp, Node block) {
+			this.ident = adopt(ident);
+			this.slot = slot;
+			this.exp = adopt(exp);
+			this.block = adopt(block);
+		}
+
+		@Override
+		Value execute(Frame frame) {
+			var i = intOf(ident, frame);
+			intOf(exp, frame);
+			for (; i <= intOf(exp, frame); i++) {
+				storeInt(frame, slot, i);
+				block.execute(frame);
+			}
+			storeInt(frame, slot, i);
+			return null;
+		}
+
+		@Override
+		void replaceChild(Node child, Node node) {
+			if (exp == child)
+				exp = node;
+			else
+				super.replaceChild(child, node);
+		}
+	}
+
+	// executes exp, then raises the error of a variable without slot
+	private static Node invalidStore(Node exp, String message) {
+		return new UnaryNode(exp) {
+			@Override
+			Value execute(Frame frame) {
+				this.exp.execute(frame);
+				throw new EnvironmentException(message);
+			}
+		};
+	}
+
+	// programs
+
+	@Override
+	public Node visitProg(StmtSeq stmtSeq) {
+		return stmtSeq.accept(this);
+	}
+
+	// statements
+
+	@Override
+	public Node visitAssignStmt(VarIdent ident, Exp exp) {
+		if (slot(ident) < 0)
+			return invalidStore(build(exp), "Undeclared variable " + ident.getName());
+		return specializing(new UninitializedStore((ResolvedVarIdent) ident, build(exp)));
+	}
+
+	@Override
+	public Node visitPrintStmt(Exp exp) {
+		return new UnaryNode(build(exp)) {
+			@Override
+			Value execute(Frame frame) {
+				printWriter.println(this.exp.execute(frame));
+				return null;
+			}
+		};
+	}
+
+	@Override
+	public Node visitVarStmt(VarIdent ident, Exp exp) {
+		if (slot(ident) < 0)
+			return invalidStore(build(exp), "Variable " + ident.getName() + " already declared");
+		return specializing(new UninitializedStore((ResolvedVarIdent) ident, build(exp)));
+	}
+
+	@Override
+	public Node visitForStmt(VarIdent ident, Exp exp, Block block) {
+		return new For(build(ident), slot(ident), build(exp), block.accept(this));
+	}
+
+	@Override
+	public Node visitIfStmt(Exp exp, Block thenBlock, Block elseBlock) {
+		return new If(build(exp), thenBlock.accept(this), elseBlock == null ? null : elseBlock.accept(this));
+	}
+
+	// the slots of blocks are laid out by the Resolver, there is nothing to do on entry and exit
+	@Override
+	public Node visitBlock(StmtSeq stmtSeq) {
+		return stmtSeq.accept(this);
+	}
+
+	// sequences of statements
+
+	@Override
+	public Node visitStmtList(List<Stmt> stmts) {
+		var nodes = new Node[stmts.size()];
+		for (var i = 0; i < nodes.length; i++)
+			nodes[i] = stmts.get(i).accept(this);
+		return new Seq(nodes);
+	}
+
+	// expressions; operands are executed from left to right
+
+	@Override
+	public Node visitAdd(Exp left, Exp right) {
+		return new BinaryNode(build(left), build(right)) {
+			@Override
+			Value execute(Frame frame) {
+				return IntValue.of(executeInt(frame));
+			}
+
+			@Override
+			int executeInt(Frame frame) {
+				return intOf(this.left, frame) + intOf(this.right, frame);
+			}
+		};
+	}
+
+	@Override
+	public Node visitIntLiteral(int value) {
+		var boxed = IntValue.of(value);
+		return new Node() {
+			@Override
+			Value execute(Frame frame) {
+				return boxed;
+			}
+
+			@Override
+			int executeInt(Frame frame) {
+				return value;
+			}
+		};
+	}
+
+	@Override
+	public Node visitMul(Exp left, Exp right) {
+		return new BinaryNode(build(left), build(right)) {
+			@Override
+			Value execute(Frame frame) {
+				return IntValue.of(executeInt(frame));
+			}
+
+			@Override
+			int executeInt(Frame frame) {
+				return intOf(this.left, frame) * intOf(this.right, frame);
+			}
+		};
+	}
+
+	@Override
+	public Node visitSign(Exp exp) {
+		return new UnaryNode(build(exp)) {
+			@Override
+			Value execute(Frame frame) {
+				return IntValue.of(executeInt(frame));
+			}
+
+			@Override
+			int executeInt(Frame frame) {
+				return -intOf(this.exp, frame);
+			}
+		};
+	}
+
+	@Override
+	public Node visitSeasonNum(Exp exp) {
+		return new UnaryNode(build(exp)) {
+			@Override
+			Value execute(Frame frame) {
+				return IntValue.of(executeInt(frame));
+			}
+
+			@Override
+			int executeInt(Frame frame) {
+				return this.exp.execute(frame).toSeason().ordinal();
+			}
+		};
+	}
+
+	@Override
+	public Node visitSeasonOf(Exp exp) {
+		return new UnaryNode(build(exp)) {
+			@Override
+			Value execute(Frame frame) {
+				var val = intOf(this.exp, frame);
+				if (!(val >= 0 && val <= 3))
+					throw new ArrayIndexOutOfBoundsException("Index -1 out of bounds for length 4");
+				return SeasonValue.of(val);
+			}
+		};
+	}
+
+	@Override
+	public Node visitVarIdent(VarIdent id) {
+		var slot = slot(id);
+		if (slot < 0)
+			return new Node() {
+				@Override
+				Value execute(Frame frame) {
+					throw new EnvironmentException("Undeclared variable " + id.getName());
+				}
+			};
+		return new Node() {
+			@Override
+			Value execute(Frame frame) {
+				var value = frame.values[slot];
+				return value == Frame.UNBOXED ? IntValue.of(frame.ints[slot]) : value;
+			}
+
+			@Override
+			int executeInt(Frame frame) {
+				var value = frame.values[slot];
+				if (value == Frame.UNBOXED)
+					return frame.ints[slot];
+				throw new UnexpectedResultException(value);
+			}
+		};
+	}
+
+	@Override
+	public Node visitNot(Exp exp) {
+		return new UnaryNode(build(exp)) {
+			@Override
+			Value execute(Frame frame) {
+				return BoolValue.of(executeBool(frame));
+			}
+
+			@Override
+			boolean executeBool(Frame frame) {
+				return !boolOf(this.exp, frame);
+			}
+		};
+	}
+
+	@Override
+	public Node visitAnd(Exp left, Exp right) {
+		return new BinaryNode(build(left), build(right)) {
+			@Override
+			Value execute(Frame frame) {
+				return BoolValue.of(executeBool(frame));
+			}
+
+			@Override
+			boolean executeBool(Frame frame) {
+				return boolOf(this.left, frame) && boolOf(this.right, frame);
+			}
+		};
+	}
+
+	@Override
+	public Node visitBoolLiteral(boolean value) {
+		var boxed = BoolValue.of(value);
+		return new Node() {
+			@Override
+			Value execute(Frame frame) {
+				return boxed;
+			}
+
+			@Override
+			boolean executeBool(Frame frame) {
+				return value;
+			}
+		};
+	}
+
+	@Override
+	public Node visitEq(Exp left, Exp right) {
+		return specializing(new UninitializedEq(build(left), build(right), new Eq(left, right)));
+	}
+
+	@Override
+	public Node visitLess(Exp left, Exp right) {
+		return specializing(new UninitializedLess(build(left), build(right), new Less(left, right)));
+	}
+
+	@Override
+	public Node visitPairLit(Exp left, Exp right) {
+		return new BinaryNode(build(left), build(right)) {
+			@Override
+			Value execute(Frame frame) {
+				var fst = this.left.execute(frame);
+				return new PairValue(fst, this.right.execute(frame));
+			}
+		};
+	}
+
+	@Override
+	public Node visitFst(Exp exp) {
+		return new UnaryNode(build(exp)) {
+			@Override
+			Value execute(Frame frame) {
+				return this.exp.execute(frame).toProd().getFstVal();
+			}
+		};
+	}
+
+	@Override
+	public Node visitSnd(Exp exp) {
+		return new UnaryNode(build(exp)) {
+			@Override
+			Value execute(Frame frame) {
+				return this.exp.execute(frame).toProd().getSndVal();
+			}
+		};
+	}
+
+	@Override
+	public Node visitSeasonLiteral(int value) {
+		var season = SeasonValue.of(value);
+		return new Node() {
+			@Override
+			Value execute(Frame frame) {
+				return season;
+			}
+		};
+	}
+
+}
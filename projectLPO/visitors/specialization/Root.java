@@ -0,0 +1,26 @@
+package projectLPO.visitors.specialization;
+
+import static java.util.Objects.requireNonNull;
+
+import projectLPO.visitors.evaluation.Value;
+
+// root of the tree of a program, it records the replacements of its nodes
+final class Root extends UnaryNode {
+
+	private final Specializations specializations;
+
+	Root(Node body, Specializations specializations) {
+		super(body);
+		this.specializations = requireNonNull(specializations);
+	}
+
+	Specializations getSpecializations() {
+		return specializations;
+	}
+
+	@Override
+	Value execute(Frame frame) {
+		return exp.execute(frame);
+	}
+
+}
@@ -0,0 +1,44 @@
+package projectLPO.visitors.specialization;
+
+import static java.lang.System.err;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import projectLPO.parser.BufferedParser;
+import projectLPO.parser.ParserException;
+import projectLPO.parser.ReaderTokenizer;
+import projectLPO.visitors.evaluation.EvaluatorException;
+import projectLPO.visitors.resolution.Resolver;
+
+/*
+ * runs a program with a SpecializingEval, without type checking, then prints
+ * the Specializations of its nodes on the standard error; the output of the
+ * program goes to the standard output
+ *
+ * usage: java projectLPO.visitors.specialization.SpecializationReport <program>
+ */
+public class SpecializationReport {
+
+	public static void main(String[] args) {
+		if (args.length != 1) {
+			err.println("usage: java projectLPO.visitors.specialization.SpecializationReport <program>");
+			System.exit(1);
+		}
+		var pw = new PrintWriter(System.out, true);
+		var eval = new SpecializingEval(pw, null);
+		try (var parser = new BufferedParser(new ReaderTokenizer(new FileReader(args[0])))) {
+			eval.run(new Resolver(false).resolve(parser.parseProg()));
+		} catch (IOException e) {
+			err.println("I/O error: " + e.getMessage());
+		} catch (ParserException e) {
+			err.println("Syntax error: " + e.getMessage());
+		} catch (EvaluatorException e) {
+			err.println("Dynamic error: " + e.getMessage());
+		}
+		pw.flush();
+		err.print(eval.getSpecializations());
+	}
+
+}
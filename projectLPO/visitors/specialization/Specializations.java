@@ -0,0 +1,60 @@
+package projectLPO.visitors.specialization;
+
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ * statistics of the specializing nodes of the trees built by a
+ * SpecializingEval: the number of nodes of each variant, after their
+ * replacements, and the number of replacements between each pair of variants;
+ * if log is not null, each replacement is reported with the program fragment
+ * of the node
+ */
+public class Specializations {
+
+	private final PrintStream log; // null if replacements are not reported
+	private final Map<String, Integer> nodes = new TreeMap<>(); // by variant
+	private final Map<String, Integer> replacements = new TreeMap<>(); // by "variant -> variant"
+
+	public Specializations(PrintStream log) {
+		this.log = log;
+	}
+
+	private static String variant(Node node) {
+		return node.getClass().getSimpleName();
+	}
+
+	void created(Node node) {
+		nodes.merge(variant(node), 1, Integer::sum);
+	}
+
+	void replaced(Node node, Node by) {
+		var from = variant(node);
+		var to = variant(by);
+		nodes.merge(from, -1, (count, delta) -> count + delta == 0 ? null : count + delta);
+		nodes.merge(to, 1, Integer::sum);
+		replacements.merge(from + " -> " + to, 1, Integer::sum);
+		if (log != null)
+			log.printf("specialize: %s -> %s for %s%n", from, to, node.getSource());
+	}
+
+	public Map<String, Integer> getNodes() {
+		return Collections.unmodifiableMap(nodes);
+	}
+
+	public Map<String, Integer> getReplacements() {
+		return Collections.unmodifiableMap(replacements);
+	}
+
+	@Override
+	public String toString() {
+		var sb = new StringBuilder("nodes:\n");
+		nodes.forEach((variant, count) -> sb.append(String.format("%8d %s%n", count, variant)));
+		sb.append("replacements:\n");
+		replacements.forEach((pair, count) -> sb.append(String.format("%8d %s%n", count, pair)));
+		return sb.toString();
+	}
+
+}
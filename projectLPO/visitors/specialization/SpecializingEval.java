@@ -0,0 +1,48 @@
+package projectLPO.visitors.specialization;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+
+import projectLPO.environments.EnvironmentException;
+import projectLPO.parser.ast.Prog;
+import projectLPO.visitors.evaluation.EvaluatorException;
+
+/*
+ * alternative to Eval which builds a tree of Nodes with a NodeBuilder and runs
+ * it on a Frame; the nodes specialize themselves for the kinds of the values
+ * they observe, hence programs must be resolved by the Resolver but need not
+ * be type-checked; the observable behavior is the same as for Eval, without
+ * hash-consing and lazy pairs; the frame and the statistics persist across
+ * calls, so that programs can be run one statement at a time
+ */
+public class SpecializingEval {
+
+	private final PrintWriter printWriter; // output stream used to print values
+	private final Specializations specializations;
+	private final Frame frame = new Frame();
+
+	// if log is not null, the replacements of nodes are reported on it
+	public SpecializingEval(PrintWriter printWriter, PrintStream log) {
+		this.printWriter = printWriter;
+		specializations = new Specializations(log);
+	}
+
+	public Specializations getSpecializations() {
+		return specializations;
+	}
+
+	public void run(Prog prog) {
+		var builder = new NodeBuilder(printWriter, specializations);
+		var root = builder.build(prog);
+		frame.ensureCapacity(builder.getFrameSize());
+		try {
+			root.execute(frame);
+			// possible runtime errors
+			// EnvironmentException: undefined variable
+			// IndexOutOfBoundsException: seasonof out of range
+		} catch (EnvironmentException | IndexOutOfBoundsException e) {
+			throw new EvaluatorException(e);
+		}
+	}
+
+}
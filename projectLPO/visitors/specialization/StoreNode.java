@@ -0,0 +1,108 @@
+package projectLPO.visitors.specialization;
+
+import static java.util.Objects.requireNonNull;
+
+import projectLPO.parser.ast.AST;
+import projectLPO.parser.ast.ResolvedVarIdent;
+import projectLPO.visitors.evaluation.IntValue;
+import projectLPO.visitors.evaluation.Value;
+
+/*
+ * assignment or declaration of a variable with a slot, specialized by the kind
+ * of the stored values: integers are computed and stored unboxed, the other
+ * values are stored as they are
+ */
+abstract class StoreNode extends UnaryNode {
+
+	private final ResolvedVarIdent ident;
+	final int slot;
+
+	StoreNode(ResolvedVarIdent ident, Node exp) {
+		super(exp);
+		this.ident = requireNonNull(ident);
+		slot = ident.getSlot();
+	}
+
+	@Override
+	AST getSource() {
+		return ident;
+	}
+
+	void store(Frame frame, Value value) {
+		if (value instanceof IntValue) {
+			frame.ints[slot] = value.toInt();
+			frame.values[slot] = Frame.UNBOXED;
+		} else
+			frame.values[slot] = value;
+	}
+
+	// replaces this node by the variant for value, then stores it
+	Value respecialize(Frame frame, Value value) {
+		StoreNode node;
+		if (isMegamorphic())
+			node = new GenericStore(ident, exp);
+		else if (value instanceof IntValue)
+			node = new IntStore(ident, exp);
+		else
+			node = new ValueStore(ident, exp);
+		replace(node).store(frame, value);
+		return null;
+	}
+
+	// not executed yet
+	static final class UninitializedStore extends StoreNode {
+		UninitializedStore(ResolvedVarIdent ident, Node exp) {
+			super(ident, exp);
+		}
+
+		@Override
+		Value execute(Frame frame) {
+			return respecialize(frame, exp.execute(frame));
+		}
+	}
+
+	static final class IntStore extends StoreNode {
+		IntStore(ResolvedVarIdent ident, Node exp) {
+			super(ident, exp);
+		}
+
+		@Override
+		Value execute(Frame frame) {
+			try {
+				frame.ints[slot] = exp.executeInt(frame);
+			} catch (UnexpectedResultException e) {
+				return respecialize(frame, e.getResult());
+			}
+			frame.values[slot] = Frame.UNBOXED;
+			return null;
+		}
+	}
+
+	static final class ValueStore extends StoreNode {
+		ValueStore(ResolvedVarIdent ident, Node exp) {
+			super(ident, exp);
+		}
+
+		@Override
+		Value execute(Frame frame) {
+			var value = exp.execute(frame);
+			if (value instanceof IntValue)
+				return respecialize(frame, value);
+			frame.values[slot] = value;
+			return null;
+		}
+	}
+
+	static final class GenericStore extends StoreNode {
+		GenericStore(ResolvedVarIdent ident, Node exp) {
+			super(ident, exp);
+		}
+
+		@Override
+		Value execute(Frame frame) {
+			store(frame, exp.execute(frame));
+			return null;
+		}
+	}
+
+}
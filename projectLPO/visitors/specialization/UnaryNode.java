@@ -0,0 +1,20 @@
+package projectLPO.visitors.specialization;
+
+// node with a single child
+abstract class UnaryNode extends Node {
+
+	Node exp;
+
+	UnaryNode(Node exp) {
+		this.exp = adopt(exp);
+	}
+
+	@Override
+	void replaceChild(Node child, Node node) {
+		if (exp == child)
+			exp = node;
+		else
+			super.replaceChild(child, node);
+	}
+
+}
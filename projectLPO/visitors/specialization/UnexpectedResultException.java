@@ -0,0 +1,23 @@
+package projectLPO.visitors.specialization;
+
+import projectLPO.visitors.evaluation.Value;
+
+/*
+ * thrown by Node.executeInt() and Node.executeBool() when the value of the
+ * node has a different kind; it is part of the normal control flow, hence it
+ * has no stack trace
+ */
+class UnexpectedResultException extends RuntimeException {
+
+	private final Value result;
+
+	UnexpectedResultException(Value result) {
+		super(null, null, false, false);
+		this.result = result;
+	}
+
+	Value getResult() {
+		return result;
+	}
+
+}
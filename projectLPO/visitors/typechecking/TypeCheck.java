@@ -1,14 +1,26 @@
 package projectLPO.visitors.typechecking;
 
 import static projectLPO.visitors.typechecking.PrimtType.*;
+
+import java.util.List;
+
 import projectLPO.parser.ast.*;
+import projectLPO.environments.Environment;
 import projectLPO.environments.EnvironmentException;
 import projectLPO.environments.GenEnvironment;
 import projectLPO.visitors.Visitor;
 
 public class TypeCheck implements Visitor<Type> {
 
-	private final GenEnvironment<Type> env = new GenEnvironment<>();
+	private final Environment<Type> env;
+
+	public TypeCheck(Environment<Type> env) {
+		this.env = env;
+	}
+
+	public TypeCheck() {
+		this(new GenEnvironment<>());
+	}
 
 	private void checkBinOp(Exp left, Exp right, Type type) {
 		type.checkEqual(left.accept(this));
@@ -79,15 +91,9 @@ public class TypeCheck implements Visitor<Type> {
 	// no value returned by the visitor
 
 	@Override
-	public Type visitSingleStmt(Stmt stmt) {
-		stmt.accept(this);
-		return null;
-	}
-
-	@Override
-	public Type visitMoreStmt(Stmt first, StmtSeq rest) {
-		first.accept(this);
-		rest.accept(this);
+	public Type visitStmtList(List<Stmt> stmts) {
+		for (var stmt : stmts)
+			stmt.accept(this);
 		return null;
 	}
 
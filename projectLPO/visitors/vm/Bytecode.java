@@ -0,0 +1,59 @@
+package projectLPO.visitors.vm;
+
+/*
+ * instruction set of the Vm; an instruction is an opcode followed by its
+ * operands, all stored in an int[]; the kinds of the operands are given by
+ * FORMATS: 'r' is a register, 'k' an integer constant and 'l' the absolute
+ * position of a jump target; integers, booleans (0 or 1) and seasons (by
+ * number) are in the int registers, pairs and their boxed components in the
+ * reference registers with the same index
+ */
+public final class Bytecode {
+
+	private Bytecode() {
+	}
+
+	public static final int HALT = 0; // stops the program
+	public static final int ICONST = 1; // r k: r = k
+	public static final int MOV = 2; // r a: r = a
+	public static final int RMOV = 3; // r a: r = a, for references
+	public static final int IADD = 4; // r a b: r = a + b
+	public static final int IMUL = 5; // r a b: r = a * b
+	public static final int INEG = 6; // r a: r = -a
+	public static final int NOT = 7; // r a: r = !a
+	public static final int IEQ = 8; // r a b: r = a == b, for all scalars
+	public static final int ILT = 9; // r a b: r = a < b, for all scalars
+	public static final int PEQ = 10; // r a b: r = a == b, for pairs
+	public static final int PLT = 11; // r a b: r = a < b, for pairs
+	public static final int SEASONOF = 12; // r a: r = seasonof a
+	public static final int JMP = 13; // l: jumps to l
+	public static final int JMPF = 14; // a l: jumps to l if a is false
+	public static final int JGT = 15; // a b l: jumps to l if a > b
+	public static final int IINC = 16; // r: r = r + 1
+	public static final int BOXI = 17; // r a: reference r = integer a
+	public static final int BOXB = 18; // r a: reference r = boolean a
+	public static final int BOXS = 19; // r a: reference r = season a
+	public static final int PAIR = 20; // r a b: r = <<a, b>>, for boxed a and b
+	public static final int FST = 21; // r a: reference r = fst a
+	public static final int SND = 22; // r a: reference r = snd a
+	public static final int UNBOXI = 23; // r a: r = integer in reference a
+	public static final int UNBOXB = 24; // r a: r = boolean in reference a
+	public static final int UNBOXS = 25; // r a: r = season in reference a
+	public static final int PRINT_INT = 26; // a: prints integer a
+	public static final int PRINT_BOOL = 27; // a: prints boolean a
+	public static final int PRINT_SEASON = 28; // a: prints season a
+	public static final int PRINT_PAIR = 29; // a: prints pair a
+
+	static final String[] NAMES = { "HALT", "ICONST", "MOV", "RMOV", "IADD", "IMUL", "INEG", "NOT", "IEQ", "ILT",
+			"PEQ", "PLT", "SEASONOF", "JMP", "JMPF", "JGT", "IINC", "BOXI", "BOXB", "BOXS", "PAIR", "FST", "SND",
+			"UNBOXI", "UNBOXB", "UNBOXS", "PRINT_INT", "PRINT_BOOL", "PRINT_SEASON", "PRINT_PAIR" };
+
+	static final String[] FORMATS = { "", "rk", "rr", "rr", "rrr", "rrr", "rr", "rr", "rrr", "rrr", "rrr", "rrr", "rr",
+			"l", "rl", "rrl", "r", "rr", "rr", "rr", "rrr", "rr", "rr", "rr", "rr", "rr", "r", "r", "r", "r" };
+
+	// size of the instruction at position pc of code
+	static int size(int[] code, int pc) {
+		return 1 + FORMATS[code[pc]].length();
+	}
+
+}
@@ -0,0 +1,63 @@
+package projectLPO.visitors.vm;
+
+import static java.lang.System.err;
+import static projectLPO.visitors.vm.Bytecode.*;
+
+import java.io.FileReader;
+import java.io.IOException;
+
+import projectLPO.parser.BufferedParser;
+import projectLPO.parser.ParserException;
+import projectLPO.parser.ReaderTokenizer;
+import projectLPO.visitors.resolution.Resolver;
+import projectLPO.visitors.typechecking.TypeCheck;
+import projectLPO.visitors.typechecking.TypecheckerException;
+
+/*
+ * textual form of Bytecode, one instruction per line preceded by its position;
+ * registers are printed as r<n>, constants as numbers and jump targets as @<pos>
+ *
+ * usage: java projectLPO.visitors.vm.Disassembler <program>
+ */
+public class Disassembler {
+
+	public static String disassemble(int[] code) {
+		var sb = new StringBuilder();
+		for (var pc = 0; pc < code.length; pc += size(code, pc)) {
+			sb.append(String.format("%5d: %-12s", pc, NAMES[code[pc]]));
+			var format = FORMATS[code[pc]];
+			for (var i = 0; i < format.length(); i++) {
+				var operand = code[pc + 1 + i];
+				switch (format.charAt(i)) {
+				case 'r' -> sb.append(" r").append(operand);
+				case 'l' -> sb.append(" @").append(operand);
+				default -> sb.append(' ').append(operand);
+				}
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+	public static void main(String[] args) {
+		if (args.length != 1) {
+			err.println("usage: java projectLPO.visitors.vm.Disassembler <program>");
+			System.exit(1);
+		}
+		try (var parser = new BufferedParser(new ReaderTokenizer(new FileReader(args[0])))) {
+			var prog = parser.parseProg();
+			prog.accept(new TypeCheck());
+			var compiler = new VmCompiler();
+			var code = compiler.compile(new Resolver(true).resolve(prog));
+			System.out.println("registers: " + compiler.getFrameSize());
+			System.out.print(disassemble(code));
+		} catch (IOException e) {
+			err.println("I/O error: " + e.getMessage());
+		} catch (ParserException e) {
+			err.println("Syntax error: " + e.getMessage());
+		} catch (TypecheckerException e) {
+			err.println("Static error: " + e.getMessage());
+		}
+	}
+
+}
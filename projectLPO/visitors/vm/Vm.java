@@ -0,0 +1,184 @@
+package projectLPO.visitors.vm;
+
+import static java.util.Objects.requireNonNull;
+import static projectLPO.visitors.vm.Bytecode.*;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+import projectLPO.parser.Season;
+import projectLPO.parser.ast.Prog;
+import projectLPO.visitors.evaluation.BoolValue;
+import projectLPO.visitors.evaluation.EvaluatorException;
+import projectLPO.visitors.evaluation.IntValue;
+import projectLPO.visitors.evaluation.PairValue;
+import projectLPO.visitors.evaluation.SeasonValue;
+import projectLPO.visitors.evaluation.Value;
+
+/*
+ * alternative to Eval which compiles programs into Bytecode with a VmCompiler
+ * and runs them in a single dispatch loop, without recursion; programs must be
+ * type-checked and resolved by the Resolver, the observable behavior is the
+ * same as for Eval; the registers persist across calls, so that programs can
+ * be run one statement at a time
+ */
+public class Vm {
+
+	private final VmCompiler compiler = new VmCompiler();
+	private final PrintWriter printWriter; // output stream used to print values
+	private int[] regs = new int[16];
+	private Object[] refs = new Object[16];
+
+	public Vm(PrintWriter printWriter) {
+		this.printWriter = requireNonNull(printWriter);
+	}
+
+	public void run(Prog prog) {
+		var code = compiler.compile(prog);
+		var frameSize = compiler.getFrameSize();
+		if (frameSize > regs.length) {
+			regs = Arrays.copyOf(regs, Math.max(2 * regs.length, frameSize));
+			refs = Arrays.copyOf(refs, regs.length);
+		}
+		try {
+			execute(code);
+			// possible runtime errors
+			// IndexOutOfBoundsException: seasonof out of range
+		} catch (IndexOutOfBoundsException e) {
+			throw new EvaluatorException(e);
+		}
+	}
+
+	private void execute(int[] code) {
+		var regs = this.regs;
+		var refs = this.refs;
+		var pw = printWriter;
+		var pc = 0;
+		while (true) {
+			switch (code[pc]) {
+			case HALT:
+				return;
+			case ICONST:
+				regs[code[pc + 1]] = code[pc + 2];
+				pc += 3;
+				break;
+			case MOV:
+				regs[code[pc + 1]] = regs[code[pc + 2]];
+				pc += 3;
+				break;
+			case RMOV:
+				refs[code[pc + 1]] = refs[code[pc + 2]];
+				pc += 3;
+				break;
+			case IADD:
+				regs[code[pc + 1]] = regs[code[pc + 2]] + regs[code[pc + 3]];
+				pc += 4;
+				break;
+			case IMUL:
+				regs[code[pc + 1]] = regs[code[pc + 2]] * regs[code[pc + 3]];
+				pc += 4;
+				break;
+			case INEG:
+				regs[code[pc + 1]] = -regs[code[pc + 2]];
+				pc += 3;
+				break;
+			case NOT:
+				regs[code[pc + 1]] = regs[code[pc + 2]] ^ 1;
+				pc += 3;
+				break;
+			case IEQ:
+				regs[code[pc + 1]] = regs[code[pc + 2]] == regs[code[pc + 3]] ? 1 : 0;
+				pc += 4;
+				break;
+			case ILT:
+				regs[code[pc + 1]] = regs[code[pc + 2]] < regs[code[pc + 3]] ? 1 : 0;
+				pc += 4;
+				break;
+			case PEQ:
+				regs[code[pc + 1]] = refs[code[pc + 2]].equals(refs[code[pc + 3]]) ? 1 : 0;
+				pc += 4;
+				break;
+			case PLT:
+				regs[code[pc + 1]] = ((Value) refs[code[pc + 2]]).less((Value) refs[code[pc + 3]]) ? 1 : 0;
+				pc += 4;
+				break;
+			case SEASONOF: {
+				var val = regs[code[pc + 2]];
+				if (!(val >= 0 && val <= 3))
+					throw new ArrayIndexOutOfBoundsException("Index -1 out of bounds for length 4");
+				regs[code[pc + 1]] = val;
+				pc += 3;
+				break;
+			}
+			case JMP:
+				pc = code[pc + 1];
+				break;
+			case JMPF:
+				pc = regs[code[pc + 1]] == 0 ? code[pc + 2] : pc + 3;
+				break;
+			case JGT:
+				pc = regs[code[pc + 1]] > regs[code[pc + 2]] ? code[pc + 3] : pc + 4;
+				break;
+			case IINC:
+				regs[code[pc + 1]]++;
+				pc += 2;
+				break;
+			case BOXI:
+				refs[code[pc + 1]] = IntValue.of(regs[code[pc + 2]]);
+				pc += 3;
+				break;
+			case BOXB:
+				refs[code[pc + 1]] = BoolValue.of(regs[code[pc + 2]] != 0);
+				pc += 3;
+				break;
+			case BOXS:
+				refs[code[pc + 1]] = SeasonValue.of(regs[code[pc + 2]]);
+				pc += 3;
+				break;
+			case PAIR:
+				refs[code[pc + 1]] = new PairValue((Value) refs[code[pc + 2]], (Value) refs[code[pc + 3]]);
+				pc += 4;
+				break;
+			case FST:
+				refs[code[pc + 1]] = ((PairValue) refs[code[pc + 2]]).getFstVal();
+				pc += 3;
+				break;
+			case SND:
+				refs[code[pc + 1]] = ((PairValue) refs[code[pc + 2]]).getSndVal();
+				pc += 3;
+				break;
+			case UNBOXI:
+				regs[code[pc + 1]] = ((Value) refs[code[pc + 2]]).toInt();
+				pc += 3;
+				break;
+			case UNBOXB:
+				regs[code[pc + 1]] = ((Value) refs[code[pc + 2]]).toBool() ? 1 : 0;
+				pc += 3;
+				break;
+			case UNBOXS:
+				regs[code[pc + 1]] = ((Value) refs[code[pc + 2]]).toSeason().ordinal();
+				pc += 3;
+				break;
+			case PRINT_INT:
+				pw.println(regs[code[pc + 1]]);
+				pc += 2;
+				break;
+			case PRINT_BOOL:
+				pw.println(regs[code[pc + 1]] != 0);
+				pc += 2;
+				break;
+			case PRINT_SEASON:
+				pw.println(Season.of(regs[code[pc + 1]]));
+				pc += 2;
+				break;
+			case PRINT_PAIR:
+				pw.println(refs[code[pc + 1]]);
+				pc += 2;
+				break;
+			default:
+				throw new IllegalStateException("Unknown opcode " + code[pc]);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,401 @@
+package projectLPO.visitors.vm;
+
+import static projectLPO.visitors.typechecking.PrimtType.*;
+import static projectLPO.visitors.vm.Bytecode.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import projectLPO.environments.SlotEnvironment;
+import projectLPO.parser.ast.Block;
+import projectLPO.parser.ast.Exp;
+import projectLPO.parser.ast.Prog;
+import projectLPO.parser.ast.ResolvedVarIdent;
+import projectLPO.parser.ast.Stmt;
+import projectLPO.parser.ast.StmtSeq;
+import projectLPO.parser.ast.VarIdent;
+import projectLPO.visitors.Visitor;
+import projectLPO.visitors.typechecking.ProdType;
+import projectLPO.visitors.typechecking.Type;
+
+/*
+ * compiles a program into the Bytecode of the Vm; programs must be
+ * type-checked and resolved by the Resolver: the register of a variable is its
+ * slot, temporaries are laid out after the variables, and blocks, if and for
+ * are lowered to jumps; the visitor returns the static type of expressions,
+ * whose value is left in the register reg; while compiling an expression, an
+ * instruction writes target only after reading all its operands, hence the
+ * value of an assignment can be computed directly into its variable; the types
+ * of the variables persist across calls, so that programs can be compiled one
+ * statement at a time
+ */
+public class VmCompiler implements Visitor<Type> {
+
+	private static final int NO_TARGET = Integer.MIN_VALUE;
+
+	private final SlotEnvironment<Type> types = new SlotEnvironment<>();
+	private int[] code = new int[64];
+	private int size; // number of ints used in code
+	private int target = NO_TARGET; // register where the value of the current expression must be left, if any
+	private int reg; // register holding the value of the most recently compiled expression
+	private int temps; // number of temporaries in use, they are numbered -1, -2, ... until linking
+	private int maxTemps;
+	private int varCount; // number of slots used by the variables of the compiled programs
+
+	public int[] compile(Prog prog) {
+		size = 0;
+		temps = 0;
+		maxTemps = 0;
+		prog.accept(this);
+		emit(HALT);
+		link();
+		return Arrays.copyOf(code, size);
+	}
+
+	// number of registers needed by the most recently compiled program
+	public int getFrameSize() {
+		return varCount + maxTemps;
+	}
+
+	// replaces temporaries by the registers after the variables
+	private void link() {
+		for (var pc = 0; pc < size; pc += Bytecode.size(code, pc)) {
+			var format = FORMATS[code[pc]];
+			for (var i = 0; i < format.length(); i++)
+				if (format.charAt(i) == 'r' && code[pc + 1 + i] < 0)
+					code[pc + 1 + i] = varCount - 1 - code[pc + 1 + i];
+		}
+	}
+
+	private void emit(int... ints) {
+		if (size + ints.length > code.length)
+			code = Arrays.copyOf(code, Math.max(2 * code.length, size + ints.length));
+		for (var i : ints)
+			code[size++] = i;
+	}
+
+	// emits a jump whose target is set by patch(), returns the position of the target
+	private int emitJump(int... ints) {
+		emit(ints);
+		return size - 1;
+	}
+
+	// sets the target of a jump to the next instruction
+	private void patch(int jump) {
+		code[jump] = size;
+	}
+
+	private int newTemp() {
+		maxTemps = Math.max(maxTemps, ++temps);
+		return -temps;
+	}
+
+	// register where the current expression leaves its value
+	private int dest() {
+		return target != NO_TARGET ? target : newTemp();
+	}
+
+	private Type ret(Type type, int reg) {
+		this.reg = reg;
+		return type;
+	}
+
+	private static int slot(VarIdent ident) {
+		return ((ResolvedVarIdent) ident).getSlot();
+	}
+
+	// compiles exp leaving its value in target, or in any register if target is NO_TARGET
+	private Type compile(Exp exp, int target) {
+		var previous = this.target;
+		this.target = target;
+		try {
+			return exp.accept(this);
+		} finally {
+			this.target = previous;
+		}
+	}
+
+	// compiles exp, returns the register holding its value
+	private int compile(Exp exp) {
+		compile(exp, NO_TARGET);
+		return reg;
+	}
+
+	private void compileStmt(Stmt stmt) {
+		var mark = temps;
+		stmt.accept(this);
+		temps = mark;
+	}
+
+	// compiles a binary operator on registers
+	private Type binary(int opcode, Exp left, Exp right, Type type) {
+		var mark = temps;
+		var l = compile(left);
+		var r = compile(right);
+		temps = mark;
+		var d = dest();
+		emit(opcode, d, l, r);
+		return ret(type, d);
+	}
+
+	private Type unary(int opcode, Exp exp, Type type) {
+		var mark = temps;
+		var r = compile(exp);
+		temps = mark;
+		var d = dest();
+		emit(opcode, d, r);
+		return ret(type, d);
+	}
+
+	// boxes the value of type type in register r, returns the reference register holding it
+	private int box(Type type, int r) {
+		if (type instanceof ProdType)
+			return r;
+		var b = newTemp();
+		emit(type == INT ? BOXI : type == BOOL ? BOXB : BOXS, b, r);
+		return b;
+	}
+
+	// component of the pair in exp selected by opcode, which is FST or SND
+	private Type component(int opcode, Exp exp) {
+		var mark = temps;
+		var pairType = (ProdType) compile(exp, NO_TARGET);
+		var p = reg;
+		var type = opcode == FST ? pairType.getFstType() : pairType.getSndType();
+		temps = mark;
+		if (type instanceof ProdType) {
+			var d = dest();
+			emit(opcode, d, p);
+			return ret(type, d);
+		}
+		var t = newTemp();
+		emit(opcode, t, p);
+		temps = mark;
+		var d = dest();
+		emit(type == INT ? UNBOXI : type == BOOL ? UNBOXB : UNBOXS, d, t);
+		return ret(type, d);
+	}
+
+	// programs
+
+	@Override
+	public Type visitProg(StmtSeq stmtSeq) {
+		stmtSeq.accept(this);
+		return null;
+	}
+
+	// statements
+
+	@Override
+	public Type visitAssignStmt(VarIdent ident, Exp exp) {
+		compile(exp, slot(ident));
+		return null;
+	}
+
+	@Override
+	public Type visitPrintStmt(Exp exp) {
+		var type = compile(exp, NO_TARGET);
+		if (type == INT)
+			emit(PRINT_INT, reg);
+		else if (type == BOOL)
+			emit(PRINT_BOOL, reg);
+		else if (type == SEASON)
+			emit(PRINT_SEASON, reg);
+		else
+			emit(PRINT_PAIR, reg);
+		return null;
+	}
+
+	@Override
+	public Type visitVarStmt(VarIdent ident, Exp exp) {
+		var slot = slot(ident);
+		types.dec(ident, compile(exp, slot));
+		varCount = Math.max(varCount, slot + 1);
+		return null;
+	}
+
+	/*
+	 * as in Eval, exp is evaluated once before the loop and then before each
+	 * iteration, and the loop runs on a hidden counter copied into the variable
+	 */
+	@Override
+	public Type visitForStmt(VarIdent ident, Exp exp, Block block) {
+		var slot = slot(ident);
+		var counter = newTemp();
+		emit(MOV, counter, slot);
+		var mark = temps;
+		compile(exp);
+		temps = mark;
+		var loop = size;
+		var end = compile(exp);
+		temps = mark;
+		var exit = emitJump(JGT, counter, end, 0);
+		emit(MOV, slot, counter);
+		block.accept(this);
+		emit(IINC, counter);
+		emit(JMP, loop);
+		patch(exit);
+		emit(MOV, slot, counter);
+		return null;
+	}
+
+	@Override
+	public Type visitIfStmt(Exp exp, Block thenBlock, Block elseBlock) {
+		var cond = compile(exp);
+		var toElse = emitJump(JMPF, cond, 0);
+		thenBlock.accept(this);
+		if (elseBlock == null) {
+			patch(toElse);
+			return null;
+		}
+		var toEnd = emitJump(JMP, 0);
+		patch(toElse);
+		elseBlock.accept(this);
+		patch(toEnd);
+		return null;
+	}
+
+	@Override
+	public Type visitBlock(StmtSeq stmtSeq) {
+		stmtSeq.accept(this);
+		return null;
+	}
+
+	// sequences of statements
+
+	@Override
+	public Type visitStmtList(List<Stmt> stmts) {
+		for (var stmt : stmts)
+			compileStmt(stmt);
+		return null;
+	}
+
+	// expressions; operands are evaluated from left to right
+
+	@Override
+	public Type visitAdd(Exp left, Exp right) {
+		return binary(IADD, left, right, INT);
+	}
+
+	@Override
+	public Type visitIntLiteral(int value) {
+		var d = dest();
+		emit(ICONST, d, value);
+		return ret(INT, d);
+	}
+
+	@Override
+	public Type visitMul(Exp left, Exp right) {
+		return binary(IMUL, left, right, INT);
+	}
+
+	@Override
+	public Type visitSign(Exp exp) {
+		return unary(INEG, exp, INT);
+	}
+
+	@Override
+	public Type visitSeasonNum(Exp exp) {
+		compile(exp, target); // seasons are already represented by their numbers
+		return INT;
+	}
+
+	@Override
+	public Type visitSeasonOf(Exp exp) {
+		return unary(SEASONOF, exp, SEASON);
+	}
+
+	@Override
+	public Type visitVarIdent(VarIdent id) {
+		var type = types.lookup(id);
+		var slot = slot(id);
+		if (target == NO_TARGET)
+			return ret(type, slot);
+		emit(type instanceof ProdType ? RMOV : MOV, target, slot);
+		return ret(type, target);
+	}
+
+	@Override
+	public Type visitNot(Exp exp) {
+		return unary(NOT, exp, BOOL);
+	}
+
+	// the right operand is evaluated only if the left one is true
+	@Override
+	public Type visitAnd(Exp left, Exp right) {
+		var mark = temps;
+		var t = newTemp();
+		compile(left, t);
+		var skip = emitJump(JMPF, t, 0);
+		compile(right, t);
+		patch(skip);
+		if (target == NO_TARGET)
+			return ret(BOOL, t);
+		temps = mark;
+		emit(MOV, target, t);
+		return ret(BOOL, target);
+	}
+
+	@Override
+	public Type visitBoolLiteral(boolean value) {
+		var d = dest();
+		emit(ICONST, d, value ? 1 : 0);
+		return ret(BOOL, d);
+	}
+
+	@Override
+	public Type visitEq(Exp left, Exp right) {
+		var mark = temps;
+		var type = compile(left, NO_TARGET);
+		var l = reg;
+		var r = compile(right);
+		temps = mark;
+		var d = dest();
+		emit(type instanceof ProdType ? PEQ : IEQ, d, l, r);
+		return ret(BOOL, d);
+	}
+
+	// scalars are compared by number, and false is less than true
+	@Override
+	public Type visitLess(Exp left, Exp right) {
+		var mark = temps;
+		var type = compile(left, NO_TARGET);
+		var l = reg;
+		var r = compile(right);
+		temps = mark;
+		var d = dest();
+		emit(type instanceof ProdType ? PLT : ILT, d, l, r);
+		return ret(BOOL, d);
+	}
+
+	@Override
+	public Type visitPairLit(Exp left, Exp right) {
+		var mark = temps;
+		var lType = compile(left, NO_TARGET);
+		var l = box(lType, reg);
+		var rType = compile(right, NO_TARGET);
+		var r = box(rType, reg);
+		temps = mark;
+		var d = dest();
+		emit(PAIR, d, l, r);
+		return ret(new ProdType(lType, rType), d);
+	}
+
+	@Override
+	public Type visitFst(Exp exp) {
+		return component(FST, exp);
+	}
+
+	@Override
+	public Type visitSnd(Exp exp) {
+		return component(SND, exp);
+	}
+
+	@Override
+	public Type visitSeasonLiteral(int value) {
+		var d = dest();
+		emit(ICONST, d, value);
+		return ret(SEASON, d);
+	}
+
+}